@@ -27,60 +27,61 @@ public class Task2 {
 		Block E = new Block("dept.tbl", 0);
 		Block F = new Block("enroll.tbl", 0);
 		
-		BufferMgr bm = new BufferMgr(4,2);
+		// the reference string is replayed at exact times (in milliseconds)
+		ManualClock clock = new ManualClock();
+		BufferMgr bm = new BufferMgr(4, "lru-k", 2, 10000, 200000, 1, clock);
 		Buffer x;
 		
-		long t = System.currentTimeMillis();
-		Thread.sleep(2000);
+		clock.set(2000);
 		x = bm.pin(A);
 		bm.unpin(x);
 		
-		Thread.sleep(3000);
+		clock.advance(3000);
 		x = bm.pin(B);
 		bm.unpin(x);
 		
-		Thread.sleep(3000);
+		clock.advance(3000);
 		x = bm.pin(A);
 		bm.unpin(x);
 		
-		Thread.sleep(8000);
+		clock.advance(8000);
 		x = bm.pin(B);
 		bm.unpin(x);
 		
-		Thread.sleep(4000);
+		clock.advance(4000);
 		x = bm.pin(C);
 		bm.unpin(x);
 		
 
-		Thread.sleep(4000); //till 24
+		clock.advance(4000); //till 24
 		x = bm.pin(D);
 		bm.unpin(x);
 		
-		Thread.sleep(6000); //till 30
+		clock.advance(6000); //till 30
 		x = bm.pin(E);
 		bm.unpin(x);
 		
-		Thread.sleep(10000); //till 40
+		clock.advance(10000); //till 40
 		x = bm.pin(F);
 		bm.unpin(x);
 		
-		Thread.sleep(5000); //till 45
+		clock.advance(5000); //till 45
 		x = bm.pin(A);
 		bm.unpin(x);
 		
-		Thread.sleep(9000); //till 54
+		clock.advance(9000); //till 54
 		x = bm.pin(C);
 		bm.unpin(x);
 		
-		Thread.sleep(16000); //till 70
+		clock.advance(16000); //till 70
 		x = bm.pin(D);
 		bm.unpin(x);
 		
-		Thread.sleep(10000); //till 80
+		clock.advance(10000); //till 80
 		x = bm.pin(E);
 		bm.unpin(x);
 		
-		Thread.sleep(20000); //till 100
+		clock.advance(20000); //till 100
 		x = bm.pin(F);
 		bm.unpin(x);
 		
@@ -0,0 +1,119 @@
+package simpledb.buffer;
+
+import java.util.*;
+
+/**
+ * The ARC replacement policy (Megiddo and Modha).
+ * Resident blocks are split between T1, the blocks referenced once
+ * recently, and T2, the blocks referenced at least twice recently.
+ * The ghost lists B1 and B2 remember the keys of blocks recently
+ * replaced from T1 and T2.
+ * A miss on a block remembered in B1 grows the target size p of T1,
+ * and a miss on a block remembered in B2 shrinks it;
+ * the victim comes from T1 when T1 is larger than p,
+ * and from T2 otherwise.
+ * <p>
+ * Because the victim is chosen before the missing block is known,
+ * the tie-break of the original algorithm in favor of
+ * replacing from T1 on a B2 miss is not applied.
+ */
+class ARCPolicy implements ReplacementPolicy {
+   private int c = 1;
+   private double p = 0;
+   private LinkedHashSet<Buffer> t1 = new LinkedHashSet<Buffer>();
+   private LinkedHashSet<Buffer> t2 = new LinkedHashSet<Buffer>();
+   private LinkedHashSet<Long> b1 = new LinkedHashSet<Long>();
+   private LinkedHashSet<Long> b2 = new LinkedHashSet<Long>();
+
+   public void resize(int numbuffs) {
+      c = Math.max(1, numbuffs);
+      p = Math.min(p, c);
+   }
+
+   public void onHit(Buffer buff, long cur_time) {
+      t1.remove(buff);
+      t2.remove(buff);
+      t2.add(buff);
+   }
+
+   public void onMiss(Buffer buff, long cur_time) {
+      Long key = buff.block().key();
+      if (b1.contains(key)) {
+         double delta = (b1.size() >= b2.size()) ? 1 : (double) b2.size() / b1.size();
+         p = Math.min(c, p + delta);
+         b1.remove(key);
+         t2.add(buff);
+      }
+      else if (b2.contains(key)) {
+         double delta = (b2.size() >= b1.size()) ? 1 : (double) b1.size() / b2.size();
+         p = Math.max(0, p - delta);
+         b2.remove(key);
+         t2.add(buff);
+      }
+      else
+         t1.add(buff);
+   }
+
+   public void onUnpin(Buffer buff) {}
+
+   public Buffer chooseVictim(long cur_time) {
+      boolean fromT1 = !t1.isEmpty() && t1.size() > p;
+      Buffer buff = removeUnpinned(fromT1 ? t1 : t2);
+      if (buff != null)
+         remember(buff, fromT1);
+      else {
+         buff = removeUnpinned(fromT1 ? t2 : t1);
+         if (buff != null)
+            remember(buff, !fromT1);
+      }
+      return buff;
+   }
+
+   public List<Buffer> nextVictims(int n) {
+      List<Buffer> result = new ArrayList<Buffer>(n);
+      boolean fromT1 = !t1.isEmpty() && t1.size() > p;
+      addUnpinned(fromT1 ? t1 : t2, result, n);
+      addUnpinned(fromT1 ? t2 : t1, result, n);
+      return result;
+   }
+
+   private void addUnpinned(Collection<Buffer> list, List<Buffer> result, int n) {
+      for (Buffer buff : list) {
+         if (result.size() >= n)
+            return;
+         if (!buff.isPinned())
+            result.add(buff);
+      }
+   }
+
+   /**
+    * Adds the key of the replaced block to the corresponding
+    * ghost list, keeping |T1|+|B1| at most c and the
+    * size of the whole directory at most 2c.
+    */
+   private void remember(Buffer buff, boolean fromT1) {
+      (fromT1 ? b1 : b2).add(buff.block().key());
+      while (t1.size() + b1.size() > c && !b1.isEmpty())
+         removeOldest(b1);
+      while (t1.size() + t2.size() + b1.size() + b2.size() > 2*c)
+         removeOldest(b2.isEmpty() ? b1 : b2);
+   }
+
+   private void removeOldest(LinkedHashSet<Long> ghosts) {
+      Iterator<Long> iter = ghosts.iterator();
+      iter.next();
+      iter.remove();
+   }
+
+   private Buffer removeUnpinned(LinkedHashSet<Buffer> list) {
+      Iterator<Buffer> iter = list.iterator();
+      while (iter.hasNext()) {
+         Buffer buff = iter.next();
+         if (!buff.isPinned()) {
+            iter.remove();
+            return buff;
+         }
+      }
+      return null;
+   }
+}
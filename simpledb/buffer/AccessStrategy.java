@@ -0,0 +1,123 @@
+package simpledb.buffer;
+
+import java.util.*;
+
+/**
+ * A buffer access strategy for bulk operations.
+ * A client that reads or writes many blocks once, such as a
+ * large table scan or a temporary table being written,
+ * can pin its blocks through a strategy.
+ * Blocks that miss the buffer pool are then read into a small
+ * private ring of frames, which is recycled as the client moves on,
+ * instead of into frames chosen by the replacement policy.
+ * Thus a bulk operation neither evicts the pool's hot pages
+ * nor disturbs the replacement state.
+ * <p>
+ * A bulk-read strategy does not write pages:
+ * a frame of its ring that has become dirty is handed over
+ * to the buffer pool instead of being reused.
+ * A bulk-write strategy writes its dirty pages itself,
+ * when their frames are reused.
+ * <p>
+ * A strategy must be used by only one thread at a time,
+ * and must be {@link BufferMgr#release(AccessStrategy) released}
+ * when the client is done.
+ */
+public class AccessStrategy {
+   public static final int BULK_READ_RING = 8;
+   public static final int BULK_WRITE_RING = 16;
+
+   private int capacity;
+   private boolean writes;
+   private List<Buffer> ring = new ArrayList<Buffer>();
+   private int next = 0;
+
+   /**
+    * Creates a strategy whose ring has at most the specified
+    * number of frames.
+    * @param capacity the maximum size of the ring
+    * @param writes true if the strategy writes its dirty pages
+    */
+   public AccessStrategy(int capacity, boolean writes) {
+      this.capacity = capacity;
+      this.writes = writes;
+   }
+
+   /**
+    * Creates a strategy for reading many blocks once.
+    * @return a bulk-read strategy
+    */
+   public static AccessStrategy bulkRead() {
+      return new AccessStrategy(BULK_READ_RING, false);
+   }
+
+   /**
+    * Creates a strategy for writing many blocks once.
+    * @return a bulk-write strategy
+    */
+   public static AccessStrategy bulkWrite() {
+      return new AccessStrategy(BULK_WRITE_RING, true);
+   }
+
+   /**
+    * Returns the maximum number of frames of the ring.
+    * @return the capacity of the ring
+    */
+   int capacity() {
+      return capacity;
+   }
+
+   /**
+    * Returns true if the strategy writes its dirty pages.
+    * @return true for a bulk-write strategy
+    */
+   boolean writes() {
+      return writes;
+   }
+
+   /**
+    * Returns the number of frames in the ring.
+    * @return the size of the ring
+    */
+   int size() {
+      return ring.size();
+   }
+
+   /**
+    * Returns the next frame of the ring, in round-robin order.
+    * The ring must not be empty.
+    * @return the next frame
+    */
+   Buffer next() {
+      if (next >= ring.size())
+         next = 0;
+      return ring.get(next++);
+   }
+
+   /**
+    * Adds a frame to the ring.
+    * @param frame the frame
+    */
+   void add(Buffer frame) {
+      ring.add(frame);
+   }
+
+   /**
+    * Removes a frame from the ring.
+    * @param frame the frame
+    */
+   void remove(Buffer frame) {
+      ring.remove(frame);
+   }
+
+   /**
+    * Removes all the frames from the ring, and returns them.
+    * @return the frames that were in the ring
+    */
+   List<Buffer> clear() {
+      List<Buffer> frames = ring;
+      ring = new ArrayList<Buffer>();
+      next = 0;
+      return frames;
+   }
+}
@@ -1,94 +1,286 @@
 package simpledb.buffer;
 
 import simpledb.file.*;
-import simpledb.server.SimpleDB;
 
-import java.sql.SQLException;
 import java.util.*;
 
-import javax.swing.text.Highlighter.HighlightPainter;
-
 /**
  * Manages the pinning and unpinning of buffers to blocks.
+ * When a block must be read and no buffer is empty,
+ * the buffer to replace is chosen by a {@link ReplacementPolicy}.
+ * <p>
+ * A basic buffer manager is one partition of the buffer pool,
+ * and has its own lock, page table and replacement state.
+ * Frames can move between partitions: an unpinned frame can be
+ * {@link #release(long) released} by one partition
+ * and adopted by another.
+ * <p>
+ * The page table can be read without the partition's lock
+ * (see {@link #lookup(long)}), which lets {@link BufferMgr}
+ * pin an already-pinned buffer without latching;
+ * every change to the partition happens under its lock.
+ * <p>
+ * The page table may also map blocks to the frames of an
+ * {@link AccessStrategy}'s ring. Such frames are not part of
+ * the partition's pool, and are unknown to the replacement policy.
  * @author Edward Sciore
  *
  */
 class BasicBufferMgr {
-   private Buffer[] bufferpool;
+   private Set<Buffer> bufferpool = new LinkedHashSet<Buffer>();
    private int numAvailable;
-   private Map<String,Buffer> hash_buff = null;
-   private HistBlock[] histblock;
-   private int k;
-   private int no_of_buffs;
-   private LastOfBlock[] last_block;
-   private static final long Ref_period = 10000; // 2 milli seconds
-   
+   private PageTable hash_buff = new PageTable();
+   private Deque<Buffer> emptyBuffs = new ArrayDeque<Buffer>();
+   private ReplacementPolicy policy;
+   private BufferMetrics metrics;
+   private long evictions = 0;  // blocks that have left the page table
+
    /**
-    * Creates a buffer manager having the specified number 
+    * Creates a buffer manager having the specified number
     * of buffer slots.
     * This constructor depends on both the {@link FileMgr} and
-    * {@link simpledb.log.LogMgr LogMgr} objects 
+    * {@link simpledb.log.LogMgr LogMgr} objects
     * that it gets from the class
     * {@link simpledb.server.SimpleDB}.
     * Those objects are created during system initialization.
-    * Thus this constructor cannot be called until 
+    * Thus this constructor cannot be called until
     * {@link simpledb.server.SimpleDB#initFileAndLogMgr(String)} or
     * is called first.
     * @param numbuffs the number of buffer slots to allocate
+    * @param policy the replacement policy of this partition
+    * @param metrics the metrics of the buffer pool
+    * @param dirtyPages the dirty page table of the buffer pool
+    * @param arena the memory of the buffer pool's pages
+    * @param firstpage the arena's first page for this partition
     */
-   BasicBufferMgr(int numbuffs, int k_param) {
-      bufferpool = new Buffer[numbuffs];
-      histblock = new HistBlock[1000];
-      last_block = new LastOfBlock[1000];
-      numAvailable = numbuffs;
+   BasicBufferMgr(int numbuffs, ReplacementPolicy policy, BufferMetrics metrics,
+                  DirtyPageTable dirtyPages, PageArena arena, int firstpage) {
+      this.policy = policy;
+      this.metrics = metrics;
       for (int i=0; i<numbuffs; i++)
-      {
-         bufferpool[i] = new Buffer();
-         //String buff_name = bufferpool[i].toString();
-         //histbuff[i] = new HistBlock(bufferpool[i],k);
-         //last_buff[i] = new LastOfBuff(bufferpool[i]);
-      }
-      hash_buff = new HashMap<String, Buffer>();
-      no_of_buffs = numbuffs;
-      k = k_param;
+         add(new Buffer(arena.page(firstpage + i), metrics, dirtyPages));
    }
-   
-   /**
-    * Flushes the dirty buffers modified by the specified transaction.
-    * @param txnum the transaction's id number
-    */
-   synchronized void flushAll(int txnum) {
-      for (Buffer buff : bufferpool)
-         if (buff.isModifiedBy(txnum))
-         buff.flush();
-   }
-   
+
    /**
-    * Pins a buffer to the specified block. 
+    * Pins a buffer to the specified block.
     * If there is already a buffer assigned to that block
-    * then that buffer is used;  
+    * then that buffer is used;
     * otherwise, an unpinned buffer from the pool is chosen.
     * Returns a null value if there are no available buffers.
     * @param blk a reference to a disk block
+    * @param cur_time the time of the reference
     * @return the pinned buffer
     */
-   synchronized Buffer pin(Block blk,long cur_time) {
+   synchronized Buffer pin(Block blk, long cur_time) {
       Buffer buff = findExistingBuffer(blk);
       if (buff == null) {
-         buff = chooseUnpinnedBuffer(blk,cur_time);
+         buff = chooseUnpinnedBuffer(cur_time);
          if (buff == null)
             return null;
          buff.assignToBlock(blk);
-         //added code
-         hash_buff.put(blk.toString(), buff);
-         //System.out.println("***choosing unpinned:" + blk + ":" + buff );
+         admit(buff, cur_time);
+         metrics.miss(blk);
       }
-      if (!buff.isPinned())
+      else {
+         metrics.hit(blk);
+         if (!buff.isPinned() && !buff.inRing())
+            policy.onHit(buff, cur_time);
+      }
+      if (!buff.isPinned() && !buff.inRing())
          numAvailable--;
       buff.pin();
       return buff;
    }
-   
+
+   /**
+    * Pins the buffer that holds the specified block,
+    * if the block is resident.
+    * Returns null, without replacing any buffer, if it is not.
+    * @param blk a reference to a disk block
+    * @param cur_time the time of the reference
+    * @return the pinned buffer, or null
+    */
+   synchronized Buffer pinResident(Block blk, long cur_time) {
+      if (findExistingBuffer(blk) == null)
+         return null;
+      return pin(blk, cur_time);
+   }
+
+   /**
+    * Pins a buffer to the specified block, reading the block
+    * into the specified ring frame if it is not resident.
+    * The frame must be unpinned and not mapped to any block.
+    * @param frame a frame of an access strategy's ring
+    * @param blk a reference to a disk block
+    * @param cur_time the time of the reference
+    * @return the pinned buffer, which is the frame unless the block was resident
+    */
+   synchronized Buffer pinRing(Buffer frame, Block blk, long cur_time) {
+      if (findExistingBuffer(blk) != null)
+         return pin(blk, cur_time);
+      frame.assignToBlock(blk);
+      hash_buff.put(blk.key(), frame);
+      metrics.miss(blk);
+      frame.pin();
+      return frame;
+   }
+
+   /**
+    * Pins a ring frame that has just been assigned to a new block.
+    * The new block must belong to this partition.
+    * @param frame the frame holding the new block
+    * @return the pinned frame
+    */
+   synchronized Buffer pinRingNew(Buffer frame) {
+      hash_buff.put(frame.block().key(), frame);
+      frame.pin();
+      return frame;
+   }
+
+   /**
+    * Prepares a ring frame whose block belongs to this partition
+    * for reuse: the frame's page is written if it is dirty,
+    * and its block is removed from the page table.
+    * A frame that is pinned (by another thread that found its block)
+    * cannot be reused.
+    * @param frame a frame of an access strategy's ring
+    * @return true if the frame can be reused
+    */
+   synchronized boolean detach(Buffer frame) {
+      if (frame.isPinned())
+         return false;
+      frame.flush();
+      long key = frame.block().key();
+      if (hash_buff.get(key) == frame) {
+         hash_buff.remove(key);
+         evictions++;
+         metrics.eviction(frame.block());
+      }
+      return true;
+   }
+
+   /**
+    * Takes a frame out of an access strategy's ring
+    * and adds it to this partition.
+    * If the frame holds a block of this partition that is
+    * pinned, or if the frame is to stay resident, the buffer
+    * becomes an ordinary resident buffer;
+    * otherwise its page is written if dirty, and it becomes empty.
+    * @param frame the frame leaving the ring
+    * @param keep true if the frame's block should stay resident
+    * @param cur_time the current time
+    */
+   synchronized void returnFrame(Buffer frame, boolean keep, long cur_time) {
+      frame.setInRing(false);
+      bufferpool.add(frame);
+      policy.resize(bufferpool.size());
+      Block blk = frame.block();
+      if (blk != null && hash_buff.get(blk.key()) == frame) {
+         if (keep || frame.isPinned()) {
+            policy.onMiss(frame, cur_time);
+            if (!frame.isPinned()) {
+               numAvailable++;
+               policy.onUnpin(frame);
+            }
+            return;
+         }
+         frame.flush();
+         hash_buff.remove(blk.key());
+         evictions++;
+         metrics.eviction(blk);
+      }
+      emptyBuffs.add(frame);
+      numAvailable++;
+   }
+
+   /**
+    * Returns the buffer that holds the block with the specified key,
+    * without acquiring the partition's lock.
+    * The result may be stale: the caller must pin the buffer
+    * and then check that it still holds the block.
+    * @param key the key of a disk block
+    * @return the buffer that held the block, or null
+    */
+   Buffer lookup(long key) {
+      return hash_buff.get(key);
+   }
+
+   /**
+    * Adopts a frame released by another partition,
+    * and pins a buffer to the specified block.
+    * The adopted frame is used for the block unless
+    * the block became resident in the meantime.
+    * @param frame a frame released by another partition
+    * @param blk a reference to a disk block
+    * @param cur_time the time of the reference
+    * @return the pinned buffer
+    */
+   synchronized Buffer pin(Buffer frame, Block blk, long cur_time) {
+      add(frame);
+      return pin(blk, cur_time);
+   }
+
+   /**
+    * Adopts a frame released by a partition,
+    * as an empty buffer.
+    * @param frame a frame released by a partition
+    */
+   synchronized void adopt(Buffer frame) {
+      add(frame);
+   }
+
+   /**
+    * Returns the number of blocks evicted from this partition
+    * so far, or -1 if the specified block is resident.
+    * Only a resident block is written, and an evicted dirty block
+    * is written before the partition's lock is released;
+    * so a block that is not resident can be read without the lock,
+    * provided that no block is evicted before the read block
+    * is {@link #install installed}.
+    * (A block written by the page cleaner is evicted clean.)
+    * @param blk a reference to a disk block
+    * @return the number of evictions, or -1
+    */
+   synchronized long evictions(Block blk) {
+      return (findExistingBuffer(blk) == null) ? evictions : -1;
+   }
+
+   /**
+    * Adopts a frame released by a partition, into which
+    * the frame's block was read without the partition's lock,
+    * ahead of the block's first reference.
+    * The buffer is left unpinned.
+    * If a block has been evicted since the read began,
+    * the disk block may have been written after it was read,
+    * and so the block is read again.
+    * If the block has become resident, or cannot be read,
+    * the frame is kept as an empty buffer.
+    * @param frame a frame released by a partition
+    * @param count the number of evictions before the read began
+    * @param cur_time the time of the read
+    * @see #evictions(Block)
+    */
+   synchronized void install(Buffer frame, long count, long cur_time) {
+      bufferpool.add(frame);
+      policy.resize(bufferpool.size());
+      numAvailable++;
+      Block blk = frame.block();
+      if (findExistingBuffer(blk) == null) {
+         try {
+            if (count != evictions)
+               frame.assignToBlock(blk);
+            admit(frame, cur_time);
+            metrics.prefetch(blk);
+            policy.onUnpin(frame);
+            return;
+         }
+         catch (RuntimeException e) {
+            // the block will be read when it is pinned
+         }
+      }
+      emptyBuffs.add(frame);
+   }
+
    synchronized void display_blocks()
    {
 	   for(Buffer buff:bufferpool)
@@ -96,125 +288,101 @@ class BasicBufferMgr {
 		   System.out.print(buff.block().toString() + "\t");
 	   }
    }
-   
+
    /**
-    * Allocates a new block in the specified file, and
-    * pins a buffer to it. 
-    * Returns null (without allocating the block) if 
-    * there are no available buffers.
-    * @param filename the name of the file
-    * @param fmtr a pageformatter object, used to format the new block
+    * Adopts a frame that has just been assigned to a new block,
+    * and pins it.
+    * The frame must have been released by a partition,
+    * and the new block must belong to this partition.
+    * @param buff the frame holding the new block
+    * @param cur_time the time of the reference
     * @return the pinned buffer
     */
-   synchronized Buffer pinNew(String filename, PageFormatter fmtr,long cur_time) {
-	  //System.out.println("Starting");
-	  //long cur_time = System.currentTimeMillis();
-	  //System.out.println("pin new TIME:" + cur_time);
-	  Buffer buff = chooseUnpinnedBuffer(cur_time);
-	  
-	  String victim_blk = null;
-      if(buff.block() != null)
-      {
-    	  victim_blk = buff.block().toString();
-      }
-	  
-	  if (buff == null)
-         return null;
-      buff.assignToNew(filename, fmtr);
-      //added code
-      hash_buff.put(buff.block().toString(),buff);    
-       
-      /***adding code to iitialize history for new block***/
-      
-      Block blk = buff.block();
-      int old_blk = -1;
-      //long cur_time = System.currentTimeMillis();
-      
-    //allocate the new block
-	  for(LastOfBlock val : last_block)
-	  {
-		  if(val != null)
-		  {
-			  if(val.blockname.equals(blk))
-    		  {
-    			 old_blk = 1;
-    			 break;
-    		  }
-		  }
-		  else
-			  break;
-		  
-	  }
-	  
-	  if(old_blk == -1)
-	  {
-		  int count = 0;
-		  for(LastOfBlock val : last_block)
-		  {
-			  if(val != null)
-			  {
-				  count++;
-			  }
-			  else
-				  break;
-			 
-		  }
-		  histblock[count] = new HistBlock(blk,k);
-	      last_block[count] = new LastOfBlock(blk);
-	  }
-	  
-		  //update the hist buff for the incoming block and set the hist_p_1 to current timestamp
-		  for(HistBlock v_hist_blk:histblock)
-		  {
-			  if(v_hist_blk.Blockname.equals(blk))
-			  {
-				  for(int i=0; i<= (k-2); i++)
-	    		  {
-	    			  v_hist_blk.block_timestamp[i] = v_hist_blk.block_timestamp[i+1];
-	    		  }
-				  v_hist_blk.block_timestamp[k-1] = cur_time;
-				  break;
-			  }	    		 
-		  }
-		  
-		  for(LastOfBlock v_last_blk:last_block)
-		  {
-			  if(v_last_blk.blockname.equals(blk))
-			  {
-				  v_last_blk.last_timestamp = cur_time;
-				  break;
-			  }
-		  }
-		  if(victim_blk != null)
-		  {
-			  System.out.println(cur_time + " " + buff.toString() + " " + victim_blk + " "+ blk.toString());
-		  }
-		  else
-		  {
-			  System.out.println(cur_time + " " + buff.toString() + " " + "\t\t\t\t" + " "+ blk.toString());
-		  }
-      /***************************/
-      
-      
-      numAvailable--;
+   synchronized Buffer pinNew(Buffer buff, long cur_time) {
+      bufferpool.add(buff);
+      policy.resize(bufferpool.size());
+      admit(buff, cur_time);
       buff.pin();
       return buff;
    }
-   
+
    /**
     * Unpins the specified buffer.
     * @param buff the buffer to be unpinned
+    * @return true if the buffer is no longer pinned
     */
-   synchronized void unpin(Buffer buff) {
-      buff.unpin();
-      //System.out.println("***unpinning buffer:" +  buff);
-      if (!buff.isPinned())
-      {
-    	 hash_buff.values().remove(buff);
+   synchronized boolean unpin(Buffer buff) {
+      if (!buff.unpin() && !buff.inRing()) {
          numAvailable++;
+         policy.onUnpin(buff);
+         return true;
       }
+      return false;
    }
-   
+
+   /**
+    * Removes an unpinned frame from this partition, so that
+    * it can be used by another partition.
+    * If the frame holds a block, the block is evicted and,
+    * if dirty, written to disk.
+    * Returns null if there is no frame that can be replaced.
+    * @param cur_time the current time
+    * @return the released frame, or null
+    */
+   synchronized Buffer release(long cur_time) {
+      Buffer buff = chooseUnpinnedBuffer(cur_time);
+      if (buff == null)
+         return null;
+      buff.flush();
+      bufferpool.remove(buff);
+      policy.resize(bufferpool.size());
+      numAvailable--;
+      return buff;
+   }
+
+   /**
+    * Returns the dirty buffers that the page cleaner should write.
+    * If fewer than <i>low</i> of the next victims
+    * (counting the empty buffers first) are clean,
+    * the dirty buffers among the next <i>high</i> victims are returned;
+    * otherwise the list is empty.
+    * @param low the low water mark
+    * @param high the high water mark
+    * @return the buffers to write
+    */
+   synchronized List<Buffer> toClean(int low, int high) {
+      List<Buffer> dirty = new ArrayList<Buffer>();
+      int n = high - emptyBuffs.size();
+      if (emptyBuffs.size() >= low || n <= 0)
+         return dirty;
+      List<Buffer> victims = policy.nextVictims(n);
+      int clean = emptyBuffs.size();
+      for (Buffer buff : victims)
+         if (buff.isModified())
+            dirty.add(buff);
+         else if (dirty.isEmpty())
+            clean++;
+      if (clean >= low)
+         dirty.clear();
+      return dirty;
+   }
+
+   /**
+    * Adds the buffers of this partition to the specified collection.
+    * @param frames the collection to add to
+    */
+   synchronized void frames(Collection<Buffer> frames) {
+      frames.addAll(bufferpool);
+   }
+
+   /**
+    * Returns the number of buffers in this partition.
+    * @return the number of buffers
+    */
+   synchronized int size() {
+      return bufferpool.size();
+   }
+
    /**
     * Returns the number of available (i.e. unpinned) buffers.
     * @return the number of available buffers
@@ -222,555 +390,44 @@ class BasicBufferMgr {
    int available() {
       return numAvailable;
    }
-   
+
+   private void add(Buffer buff) {
+      bufferpool.add(buff);
+      emptyBuffs.add(buff);
+      policy.resize(bufferpool.size());
+      numAvailable++;
+   }
+
    private Buffer findExistingBuffer(Block blk) {
-	   Buffer buff =  hash_buff.get(blk.toString());
-	   if( buff != null)
-	   {
-		   //System.out.println("***Got a buffer:" + blk + ":" + buff);
-		   return buff;
-	   }
-	   /*
-	    for (Buffer buff : bufferpool) {
-         Block b = buff.block();
-         if (b != null && b.equals(blk))
-         {
-        	 System.out.println("Got a buffer:" + blk + ":" + buff);
-        	 return buff;
-         }
-            
-      }*/
-	  
-      return null;
+      return hash_buff.get(blk.key());
    }
-   
+
+   /**
+    * Returns an unpinned buffer that does not yet hold a block, if any;
+    * otherwise the victim chosen by the replacement policy,
+    * whose block is removed from the page table.
+    * Returns null if no buffer can be replaced.
+    */
    private Buffer chooseUnpinnedBuffer(long cur_time) {
-	      /*for (Buffer buff : bufferpool)
-	         if (!buff.isPinned())
-	         return buff;
-	      return null;*/
-	   		
-		  int empty_buff = -1;
-    	  Buffer victim = null;
-    	  int old_blk = -1;
-    	  
-    	  //choosing if any empty buffer is present or not
-    	  for (Buffer buff : bufferpool)
-          {
-    		 if(empty_buff == 1)
-    		 {
-    			 break;
-    		 }
-             if (!buff.isPinned())
-             {
-            	 Block b = buff.block();
-                 if (b == null)
-                 {
-                	empty_buff = 1;
-               		victim = buff;
-                  	break;	  
-          		 }
-               			 
-              }
-          }
-    	  
-    	  if(empty_buff == 1)
-    	  {
-    		  //System.out.println("New block,bufferpool is empty, using victim buff:" + victim);
-    		  return victim;
-    	  }
-    	  else if(empty_buff == -1)
-    	  {
-	    	  //System.out.println("Buffer does not contain the new block, and all the buffers are full. Hence choosing a victim to replace!!");
-	    	  long min = cur_time;
-	    	  victim = null;
-	    	  long last_q = 0;
-	    	  long hist_q_ref_counter = 0;
-	    	  int ref_counter = 1;
-	    	  Block victim_blk = null;
-	    	  
-	    	  
-	    	  HistBlock[] list_of_victim_blks = new HistBlock[no_of_buffs];
-	    	  //System.out.println(histblock);
-	    	  //System.out.println(last_block);
-	    	  //for all pages q in the buffer do
-	    	  //		if t  LAST(q) > Correlated Reference Period /*eligible for replacement*/ and HIST(q,K) < min /* maximum Backward Kdistance so
-	    	  //choosing the victim to replace
-	    	  
-	    	  
-	    	  //get all the blocks which are in buffer..
-	    	  
-	    	  int j=0;
-	    	  for(Buffer buff:bufferpool)
-	    	  {
-	    		  
-	    		  Block cur_blk = null;
-	    		  cur_blk = buff.block();
-	    		  for(HistBlock val : histblock)
-	    		  {
-	    			  if(val.Blockname.equals(cur_blk))
-	    			  {
-	    				  //list_of_victim_blks[i] = new HistBlock(cur_blk,k);
-	    				  list_of_victim_blks[j] = val;
-	    				  break;
-	    			  }
-	    			  
-	    		  }
-	    		  j++;
-	    	 }
-	    	  /*
-	    	  for(int a=0;a < list_of_victim_blks.length;a++)
-	    	  {
-	    		  System.out.println("No param:" + list_of_victim_blks[a].Blockname.toString());
-	    		  for(int b=0;b < list_of_victim_blks[a].block_timestamp.length;b++)
-	    			  System.out.println(list_of_victim_blks[a].block_timestamp[b]);
-	    	  }
-	    	  */
-	    	  for(int y = ref_counter; y <= k; y++)
-	    	  {
-	    		  //System.out.println("ref_counter:" + y);
-	    		  if(victim_blk != null)
-	    		  {
-	    			  //System.out.println("got victim block:" + victim_blk.toString());
-	    			  break;
-	    		  }
-		    	  for(HistBlock var_victim_blk:list_of_victim_blks)
-		    	  {
-		    		  //find all block with reference equals to ref_counter
-		    		  //check if they are valid blocks or not.
-		    		  int no_of_expected_zeros = k - y;
-		    		  int got_no_of_zeros = 0;
-		    		  for(int z = 0 ; z < k-y ; z++)
-		    		  {
-		    			  if(var_victim_blk.block_timestamp[z] == 0)
-		    			  {
-		    				  got_no_of_zeros++;
-		    				  //System.out.println("number of zeros:" + got_no_of_zeros);
-		    			  }
-		    		  }
-		    		  if(got_no_of_zeros == no_of_expected_zeros)
-		    		  {
-		    			  //System.out.println("inside this");
-		    			  //get the last_p for this victim block from lastofblock
-		    			  for(LastOfBlock var_get_last_timestamp : last_block)
-		    			  {
-		    				  if(var_get_last_timestamp.blockname.equals(var_victim_blk.Blockname))
-		    				  {
-		    					  last_q = var_get_last_timestamp.last_timestamp;
-		    					  break;
-		    				  }
-		    			  }//got the timestamp from the last_block for this victim
-		    			  //System.out.println("last time:" + last_q);
-		    			  hist_q_ref_counter = var_victim_blk.block_timestamp[k-y];
-		    			  //System.out.println("hist last time:" + hist_q_ref_counter);
-		    			  if((cur_time - last_q > Ref_period) && (hist_q_ref_counter < min))
-	        			  {
-		    				  //System.out.println("inside 2");
-	        				  victim_blk = var_victim_blk.Blockname;
-	        				  min = hist_q_ref_counter;
-	        				  //break;
-	        			  }
-		    			  
-		    		  }
-		    	  }
-		    	  //System.out.println("Traversal complete for all buffs");
-	    	  }
-	    	  
-	    	 	  	  
-	    	  for(Buffer buff:bufferpool)
-	    	  {
-	    		  //System.out.println("victims:" + buff.toString() + ":" + buff.block().toString());
-	    		  try{
-		    		  if(buff.block().equals(victim_blk))
-		    		  {
-		    			  victim = buff;
-		    			  break;
-		    		  }
-	    		  }
-	    		  catch(Exception e)
-	    		  {
-	    			  System.out.println("There is no victim to replace!! Program is exiting");
-	    			  //throw new SQLException(e);
-	    		  }
-	    	  }
-	    	  //System.out.println("bufferpool is occupied, no param, using victim buff:" + victim);
-	    	  return victim;
-    	  }//end of else empty_buff is -1
-		  
-		  
-	   return null;
-	   }
-   
-      
-   private Buffer chooseUnpinnedBuffer(Block blk,long cur_time) {
-	  Buffer choose_buff = null;
-	  //long cur_time = System.currentTimeMillis();
-	  //System.out.println("pin TIME:" + cur_time);
-	  
-      for (Buffer buff : bufferpool)
-      {
-         if (!buff.isPinned())
-         {
-        	 Block b = buff.block();
-             if (b != null && b.equals(blk))
-             {
-            	 //System.out.println("Using same buffer block:" + blk + ",buffer:" +  buff);
-            	 choose_buff = buff;
-            	 break;
-             }
-        	 
-         }
+      Buffer buff = emptyBuffs.poll();
+      if (buff != null)
+         return buff;
+      buff = policy.chooseVictim(cur_time);
+      if (buff != null) {
+         if (hash_buff.get(buff.block().key()) == buff)
+            hash_buff.remove(buff.block().key());
+         evictions++;
+         metrics.eviction(buff.block());
       }
-      //if p is already in the buffer then
-      // update history information of p
-      if (choose_buff != null)
-      {
-    	  long last_p = 0;
-    	  for(LastOfBlock val:last_block)
-    	  {
-    		  if(val.blockname.equals(blk))
-    		  {
-    			  last_p = val.last_timestamp;
-    			  break;
-    		  }
-    	  }
-    	  
-    	  if (cur_time - last_p > Ref_period)
-    	  {
-    		  //System.out.println("buffer is getting accessed in a new reference period");
-    		  /* a new, uncorrelated reference */
-    		  //correlation_period_of_referenced_page := LAST(p)  HIST(p,1)
-    		  //get HIST(p,1)
-    		  long hist_p_1;
-    		  long[] curr_blk_timestamp = new long[k] ;
-    		  for(HistBlock val1 : histblock)
-    		  {
-    			  if(val1.Blockname.equals(blk))
-        		  {
-        			  curr_blk_timestamp = val1.block_timestamp;
-        			  break;
-        		  }
-    		  }
-    		  //got timestamp array for this buffer from histbuff
-    		  //now get hist(p,1)
-    		  hist_p_1 = curr_blk_timestamp[k-1];
-    		  //got hist(p,1)
-    		  
-    		  //a new, uncorrelated reference
-    		  //correlation_period_of_referenced_page := LAST(p)  HIST(p,1)
-    		  
-    		  long cor_per_ref_page = last_p - hist_p_1;
-    		  
-    		  /*for i := 2 to K do
-  					HIST(p,i) := HIST(p,i1) + correlation_period_of_referenced_page
-  				od*/
-    		  for(HistBlock val1 : histblock)
-    		  {
-    			  if(val1.Blockname.equals(blk))
-        		  {
-    				  for(int i=0; i<= (k-2); i++)
-    	    		  {
-    	    			  val1.block_timestamp[i] = val1.block_timestamp[i+1] +  cor_per_ref_page;
-    	    		  }
-    				  //HIST (p,1) := t
-    				  val1.block_timestamp[k-1] = cur_time;
-    				  break;
-        		  }
-    		  }
-    		  //update the last time stamp for this buffer.
-    		  for(LastOfBlock val:last_block)
-        	  {
-        		  if(val.blockname.equals(blk))
-        		  {
-        			  //LAST(p) := t
-        			  val.last_timestamp = cur_time;
-        			  break;
-        		  }
-        	  }
-    		  
-    	  }
-    	  else 
-    	  {
-    		  /* a correlated reference */
-    		  //System.out.println("buffer is getting accessed in the same reference period");
-    		  for(LastOfBlock val:last_block)
-        	  {
-        		  if(val.blockname.equals(blk))
-        		  {
-        			  val.last_timestamp = cur_time;
-        			  break;
-        		  }
-        	  }
-    	  }
-    	  return choose_buff;
-      }
-      //end of if page is already in buffer
-      //else select replacement victim
-      else if(choose_buff == null)
-      {
-    	  //checking if an existing buffer is empty for which we can add the block
-    	  int empty_buff = -1;
-    	  Buffer victim = null;
-    	  int old_blk = -1;
-    	  
-    	  //choosing if any empty buffer is present or not
-    	  for (Buffer buff : bufferpool)
-          {
-    		 if(empty_buff == 1)
-    		 {
-    			 break;
-    		 }
-             if (!buff.isPinned())
-             {
-            	 Block b = buff.block();
-                 if (b == null)
-                 {
-                	empty_buff = 1;
-               		victim = buff;
-                  	break;	  
-          		 }
-               			 
-              }
-          }
-    	  
-    	  //allocating the new block to the victim which is empty.
-    	  if(empty_buff == 1)
-    	  {
-    		  //System.out.println("Buffer does not contain the new block, and found a new buffer which is empty. Hence choosing this as the victim!!");
-    		  //allocate the new block
-    		  
-    		  for(LastOfBlock val : last_block)
-        	  {
-    			  if(val != null)
-    			  {
-    				  if(val.blockname.equals(blk))
-            		  {
-            			 old_blk = 1;
-            			 break;
-            		  }
-    			  }
-    			  else
-    				  break;
-        		  
-        	  }
-        	  
-        	  if(old_blk == -1)
-        	  {
-        		  int count = 0;
-        		  for(LastOfBlock val : last_block)
-        		  {
-        			  if(val != null)
-        			  {
-        				  /*if(val.blockname == null)
-            			  {
-            				  break;
-            			  }*/
-        				  count++;
-        			  }     
-        			  else
-        				  break;
-        			  
-        		  }
-        		  histblock[count] = new HistBlock(blk,k);
-        	      last_block[count] = new LastOfBlock(blk);
-        	   }
-    		  
-	    	  for(HistBlock v_hist_blk:histblock)
-	    	  {
-	    		  if(v_hist_blk.Blockname.equals(blk))
-	    		  {
-	    			  for(int i=0; i<= (k-2); i++)
-    	    		  {
-    	    			  v_hist_blk.block_timestamp[i] = v_hist_blk.block_timestamp[i+1];
-    	    		  }
-	    			  v_hist_blk.block_timestamp[k-1] = cur_time;
-	    			  break;
-	    		  }	    		 
-	    	  }
-	    	  
-	    	  for(LastOfBlock v_last_blk:last_block)
-	    	  {
-	    		  if(v_last_blk.blockname.equals(blk))
-	    		  {
-	    			  v_last_blk.last_timestamp = cur_time;
-	    			  break;
-	    		  }
-	    	  }
-	    	  //System.out.println("bufferpool is still empty, using victim buff:" + victim + ",block:" + blk);
-	    	  System.out.println(cur_time + " " + victim.toString() + " " + "\t\t\t\t" + " " + blk.toString());
-	    	  return victim;
-    	  }
-    	  else if(empty_buff == -1)
-    	  {
-	    	  //System.out.println("Buffer does not contain the new block, and all the buffers are full. Hence choosing a victim to replace!!");
-	    	  long min = cur_time;
-	    	  victim = null;
-	    	  long last_q = 0;
-	    	  long hist_q_ref_counter = 0;
-	    	  int ref_counter = 1;
-	    	  Block victim_blk = null;
-	    	  
-	    	  HistBlock[] list_of_victim_blks = new HistBlock[no_of_buffs];
-	    	  
-	    	  //for all pages q in the buffer do
-	    	  //		if t  LAST(q) > Correlated Reference Period /*eligible for replacement*/ and HIST(q,K) < min /* maximum Backward Kdistance so
-	    	  //choosing the victim to replace
-	    	  
-	    	  
-	    	  //get all the blocks which are in buffer..
-	    	  
-	    	  int j=0;
-	    	  for(Buffer buff:bufferpool)
-	    	  {
-	    		  
-	    		  Block cur_blk = null;
-	    		  cur_blk = buff.block();
-	    		  for(HistBlock val : histblock)
-	    		  {
-	    			  if(val.Blockname.equals(cur_blk))
-	    			  {
-	    				  //list_of_victim_blks[i] = new HistBlock(cur_blk,k);
-	    				  list_of_victim_blks[j] = val;
-	    				  break;
-	    			  }
-	    			  
-	    		  }
-	    		  j++;
-	    	 }
-	    	  /*
-	    	  for(int a=0;a < list_of_victim_blks.length;a++)
-	    	  {
-	    		  System.out.println("with param:" + list_of_victim_blks[a].Blockname.toString());
-	    		  for(int b=0;b < list_of_victim_blks[a].block_timestamp.length;b++)
-	    			  System.out.println(list_of_victim_blks[a].block_timestamp[b]);
-	    	  }
-	    	  */
-	    	  for(int y = ref_counter; y <= k; y++)
-	    	  {
-	    		  //System.out.println("with param ref_counter" + y);
-	    		  if(victim_blk != null)
-	    		  {
-	    			  //System.out.println("victim block chosen:" + victim_blk);
-	    			  break;
-	    		  }
-		    	  for(HistBlock var_victim_blk:list_of_victim_blks)
-		    	  {
-		    		  //find all block with reference equals to ref_counter
-		    		  //check if they are valid blocks or not.
-		    		  int no_of_expected_zeros = k - y;
-		    		  int got_no_of_zeros = 0;
-		    		  for(int z = 0 ; z < k-y ; z++)
-		    		  {
-		    			  if(var_victim_blk.block_timestamp[z] == 0)
-		    			  {
-		    				  got_no_of_zeros++;
-		    				  //System.out.println("with param, got no. of zeros:" + got_no_of_zeros);
-		    			  }
-		    		  }
-		    		  if(got_no_of_zeros == no_of_expected_zeros)
-		    		  {
-		    			  //System.out.println("with param, inside this");
-		    			  //get the last_p for this victim block from lastofblock
-		    			  for(LastOfBlock var_get_last_timestamp : last_block)
-		    			  {
-		    				  if(var_get_last_timestamp.blockname.equals(var_victim_blk.Blockname))
-		    				  {
-		    					  last_q = var_get_last_timestamp.last_timestamp;
-		    					  break;
-		    				  }
-		    			  }//got the timestamp from the last_block for this victim
-		    			  
-		    			  hist_q_ref_counter = var_victim_blk.block_timestamp[k-y];
-		    			  
-		    			  //System.out.println("cur time" + cur_time + "\n" + "last q:" + last_q + "\n hist_q_ref_counter" + hist_q_ref_counter);
-		    			  
-		    			  if((cur_time - last_q > Ref_period) && (hist_q_ref_counter < min))
-	        			  {
-		    				  //System.out.println("with param:inside 2");
-	        				  victim_blk = var_victim_blk.Blockname;
-	        				  min = hist_q_ref_counter;
-	        				  //break;
-	        			  }
-		    			  
-		    		  }
-		    	  }
-	    	  }
-	    	  
-	    	  
-	    		    	  
-	    	  //allocate the new block
-	    	  for(LastOfBlock val : last_block)
-	    	  {
-	    		  if(val != null)
-	    		  {
-	    			  if(val.blockname.equals(blk))
-		    		  {
-		    			 old_blk = 1;
-		    			 break;
-		    		  }
-	    		  }
-	    		  else
-	    			  break;
-	    		  
-	    	  }
-	    	  
-	    	  if(old_blk == -1)
-	    	  {
-	    		  int count = 0;
-	    		  for(LastOfBlock val : last_block)
-	    		  {
-	    			  if(val != null)
-	    			  {
-	    				  /*if(val.blockname == null)
-		    			  {
-		    				  break;
-		    			  }*/
-		    			  count++;
-	    			  }
-	    			  else
-	    				  break;
-	    			 
-	    		  }
-	    		  histblock[count] = new HistBlock(blk,k);
-	    	      last_block[count] = new LastOfBlock(blk);
-	    	   }
-	    	  
-	    	  //update the hist buff for the incoming block and set the hist_p_1 to current timestamp
-	    	  for(HistBlock v_hist_blk:histblock)
-	    	  {
-	    		  if(v_hist_blk.Blockname.equals(blk))
-	    		  {
-	    			  for(int i=0; i<= (k-2); i++)
-    	    		  {
-    	    			  v_hist_blk.block_timestamp[i] = v_hist_blk.block_timestamp[i+1];
-    	    		  }
-	    			  v_hist_blk.block_timestamp[k-1] = cur_time;
-	    			  break;
-	    		  }	    		 
-	    	  }
-	    	  
-	    	  for(LastOfBlock v_last_blk:last_block)
-	    	  {
-	    		  if(v_last_blk.blockname.equals(blk))
-	    		  {
-	    			  v_last_blk.last_timestamp = cur_time;
-	    			  break;
-	    		  }
-	    	  }
-	    	  
-	    	  for(Buffer buff:bufferpool)
-	    	  {
-	    		  //System.out.println("victim block:" + buff.block().toString() + ":" + buff.toString());
-	    		  if(buff.block().equals(victim_blk))
-	    		  {
-	    			  victim = buff;
-	    			  break;
-	    		  }
-	    	  }
-	    	  System.out.println(cur_time + " " + victim.toString() + " " + victim_blk.toString() + " " + blk.toString());
-	    	  return victim;
-    	  }//end of else empty_buff is -1
-      }//end of else choose_buff is null
-     return null;
+      return buff;
+   }
+
+   /**
+    * Records a reference to the block just assigned to the buffer,
+    * and makes the buffer known to the replacement policy.
+    */
+   private void admit(Buffer buff, long cur_time) {
+      hash_buff.put(buff.block().key(), buff);
+      policy.onMiss(buff, cur_time);
    }
 }
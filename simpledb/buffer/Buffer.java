@@ -2,6 +2,8 @@ package simpledb.buffer;
 
 import simpledb.server.SimpleDB;
 import simpledb.file.*;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * An individual buffer.
@@ -11,14 +13,27 @@ import simpledb.file.*;
  * whether the contents of the page have been modified,
  * and if so, the id of the modifying transaction and
  * the LSN of the corresponding log record.
+ * The pin count is atomic, so that a buffer which is already
+ * pinned can be pinned and unpinned again without a latch.
+ * Modifying the page and writing it to disk synchronize on the buffer,
+ * so that the {@link PageCleaner} can write a page while
+ * the buffer is pinned, without losing a modification.
+ * <p>
+ * The pages of buffers that hold consecutive blocks of a file
+ * can be read or written together, with one vectored I/O call.
  * @author Edward Sciore
  */
 public class Buffer {
-   private Page contents = new Page();
-   private Block blk = null;
-   private int pins = 0;
-   private int modifiedBy = -1;  // negative means not modified
-   private int logSequenceNumber = -1; // negative means no corresponding log record
+   private static AtomicInteger nextId = new AtomicInteger();
+   private final int id = nextId.getAndIncrement();  // the order in which buffers are locked together
+   private Page contents;
+   private volatile Block blk = null;
+   private AtomicInteger pins = new AtomicInteger();
+   private volatile int modifiedBy = -1;  // negative means not modified
+   private boolean inRing = false;
+   private long logSequenceNumber = -1; // negative means no corresponding log record
+   private BufferMetrics metrics = null;
+   private DirtyPageTable dirtyPages = null;
 
    /**
     * Creates a new buffer, wrapping a new 
@@ -34,7 +49,25 @@ public class Buffer {
     * {@link simpledb.server.SimpleDB#initFileAndLogMgr(String)} or
     * is called first.
     */
-   public Buffer() {}
+   public Buffer() {
+      contents = new Page();
+   }
+
+   /**
+    * Creates a new buffer of a buffer pool,
+    * wrapping the specified page.
+    * The buffer's page writes are counted by the specified metrics,
+    * and its modifications are recorded in the specified
+    * dirty page table.
+    * @param contents the buffer's page, from the pool's {@link PageArena}
+    * @param metrics the metrics of the buffer pool
+    * @param dirtyPages the dirty page table of the buffer pool
+    */
+   Buffer(Page contents, BufferMetrics metrics, DirtyPageTable dirtyPages) {
+      this.contents = contents;
+      this.metrics = metrics;
+      this.dirtyPages = dirtyPages;
+   }
    
    /**
     * Returns the integer value at the specified offset of the
@@ -60,6 +93,56 @@ public class Buffer {
       return contents.getString(offset);
    }
 
+   /**
+    * Compares the string value at the specified offset of the
+    * buffer's page with the specified string,
+    * without creating a string for the stored value.
+    * @param offset the byte offset of the page
+    * @param key the string to compare with
+    * @return a negative integer, zero, or a positive integer as the
+    * stored string is less than, equal to, or greater than the key
+    * @see Page#compareString(int, String)
+    */
+   public int compareString(int offset, String key) {
+      return contents.compareString(offset, key);
+   }
+
+   /**
+    * Returns the short integer value at the specified offset of the
+    * buffer's page.
+    * If a short integer was not stored at that location,
+    * the behavior of the method is unpredictable.
+    * @param offset the byte offset of the page
+    * @return the short integer value at that offset
+    */
+   public short getShort(int offset) {
+      return contents.getShort(offset);
+   }
+
+   /**
+    * Returns the long integer value at the specified offset of the
+    * buffer's page.
+    * If a long integer was not stored at that location,
+    * the behavior of the method is unpredictable.
+    * @param offset the byte offset of the page
+    * @return the long integer value at that offset
+    */
+   public long getLong(int offset) {
+      return contents.getLong(offset);
+   }
+
+   /**
+    * Returns the boolean value at the specified offset of the
+    * buffer's page.
+    * If a boolean was not stored at that location,
+    * the behavior of the method is unpredictable.
+    * @param offset the byte offset of the page
+    * @return the boolean value at that offset
+    */
+   public boolean getBoolean(int offset) {
+      return contents.getBoolean(offset);
+   }
+
    /**
     * Writes an integer to the specified offset of the
     * buffer's page.
@@ -74,8 +157,8 @@ public class Buffer {
     * @param txnum the id of the transaction performing the modification
     * @param lsn the LSN of the corresponding log record
     */
-   public void setInt(int offset, int val, int txnum, int lsn) {
-      modifiedBy = txnum;
+   public synchronized void setInt(int offset, int val, int txnum, long lsn) {
+      setModified(txnum);
       if (lsn >= 0)
 	      logSequenceNumber = lsn;
       contents.setInt(offset, val);
@@ -95,13 +178,70 @@ public class Buffer {
     * @param txnum the id of the transaction performing the modification
     * @param lsn the LSN of the corresponding log record
     */
-   public void setString(int offset, String val, int txnum, int lsn) {
-      modifiedBy = txnum;
+   public synchronized void setString(int offset, String val, int txnum, long lsn) {
+      setModified(txnum);
       if (lsn >= 0)
 	      logSequenceNumber = lsn;
       contents.setString(offset, val);
    }
 
+   /**
+    * Writes a short integer to the specified offset of the
+    * buffer's page.
+    * This method assumes that the transaction has already
+    * written an appropriate log record.
+    * A negative lsn value indicates that a log record
+    * was not necessary.
+    * @param offset the byte offset within the page
+    * @param val the new short integer value to be written
+    * @param txnum the id of the transaction performing the modification
+    * @param lsn the LSN of the corresponding log record
+    */
+   public synchronized void setShort(int offset, short val, int txnum, long lsn) {
+      setModified(txnum);
+      if (lsn >= 0)
+	      logSequenceNumber = lsn;
+      contents.setShort(offset, val);
+   }
+
+   /**
+    * Writes a long integer to the specified offset of the
+    * buffer's page.
+    * This method assumes that the transaction has already
+    * written an appropriate log record.
+    * A negative lsn value indicates that a log record
+    * was not necessary.
+    * @param offset the byte offset within the page
+    * @param val the new long integer value to be written
+    * @param txnum the id of the transaction performing the modification
+    * @param lsn the LSN of the corresponding log record
+    */
+   public synchronized void setLong(int offset, long val, int txnum, long lsn) {
+      setModified(txnum);
+      if (lsn >= 0)
+	      logSequenceNumber = lsn;
+      contents.setLong(offset, val);
+   }
+
+   /**
+    * Writes a boolean to the specified offset of the
+    * buffer's page.
+    * This method assumes that the transaction has already
+    * written an appropriate log record.
+    * A negative lsn value indicates that a log record
+    * was not necessary.
+    * @param offset the byte offset within the page
+    * @param val the new boolean value to be written
+    * @param txnum the id of the transaction performing the modification
+    * @param lsn the LSN of the corresponding log record
+    */
+   public synchronized void setBoolean(int offset, boolean val, int txnum, long lsn) {
+      setModified(txnum);
+      if (lsn >= 0)
+	      logSequenceNumber = lsn;
+      contents.setBoolean(offset, val);
+   }
+
    /**
     * Returns a reference to the disk block
     * that the buffer is pinned to.
@@ -118,11 +258,125 @@ public class Buffer {
     * record has been written to disk prior to writing
     * the page to disk.
     */
-   void flush() {
+   synchronized void flush() {
       if (modifiedBy >= 0) {
          SimpleDB.logMgr().flush(logSequenceNumber);
          contents.write(blk);
          modifiedBy = -1;
+         if (metrics != null)
+            metrics.writeBack(blk);
+      }
+   }
+
+   /**
+    * Writes the page to its disk block if the
+    * page is dirty due to a modification by the
+    * specified transaction.
+    * @param txnum the id of the transaction
+    */
+   synchronized void flush(int txnum) {
+      if (isModifiedBy(txnum))
+         flush();
+   }
+
+   /**
+    * Writes the dirty pages of the specified buffers that
+    * were modified by the specified transaction.
+    * The buffers should hold consecutive blocks of one file,
+    * in order; each sequence of adjacent dirty pages is written
+    * with a single vectored write.
+    * All of the buffers are locked while their pages are written,
+    * in a fixed order, so that two threads cannot deadlock.
+    * @param buffs the buffers
+    * @param txnum the id of the transaction
+    */
+   static void flush(List<Buffer> buffs, int txnum) {
+      List<Buffer> locking = new ArrayList<Buffer>(buffs);
+      Collections.sort(locking, new Comparator<Buffer>() {
+         public int compare(Buffer b1, Buffer b2) {
+            return Integer.compare(b1.id, b2.id);
+         }
+      });
+      flushLocked(buffs, txnum, locking, 0);
+   }
+
+   private static void flushLocked(List<Buffer> buffs, int txnum, List<Buffer> locking, int n) {
+      if (n < locking.size()) {
+         synchronized (locking.get(n)) {
+            flushLocked(buffs, txnum, locking, n+1);
+         }
+         return;
+      }
+      // every buffer is now locked, so their blocks are stable
+      List<Buffer> run = new ArrayList<Buffer>();
+      for (Buffer buff : buffs) {
+         if (!run.isEmpty() && !follows(buff, run.get(run.size()-1))) {
+            writeRun(run);
+            run.clear();
+         }
+         if (buff.isModifiedBy(txnum))
+            run.add(buff);
+      }
+      writeRun(run);
+   }
+
+   /**
+    * Returns true if the first buffer holds the block
+    * that follows the block of the second.
+    */
+   private static boolean follows(Buffer buff, Buffer prev) {
+      Block b = buff.blk, p = prev.blk;
+      return b != null && p != null && b.fileName().equals(p.fileName())
+            && b.number() == p.number() + 1;
+   }
+
+   /**
+    * Writes the pages of locked, dirty buffers that hold
+    * consecutive blocks, after the log records of their
+    * modifications.
+    */
+   private static void writeRun(List<Buffer> run) {
+      if (run.isEmpty())
+         return;
+      if (run.size() == 1) {
+         run.get(0).flush();
+         return;
+      }
+      long lsn = -1;
+      Page[] pages = new Page[run.size()];
+      for (int i=0; i<pages.length; i++) {
+         lsn = Math.max(lsn, run.get(i).logSequenceNumber);
+         pages[i] = run.get(i).contents;
+      }
+      SimpleDB.logMgr().flush(lsn);
+      Page.write(run.get(0).blk, pages);
+      for (Buffer buff : run) {
+         buff.modifiedBy = -1;
+         if (buff.metrics != null)
+            buff.metrics.writeBack(buff.blk);
+      }
+   }
+
+   /**
+    * Reads the contents of consecutive blocks of a file,
+    * starting with the specified block, into the pages
+    * of the specified buffers, with a single vectored read.
+    * The buffers must be unpinned frames that belong to no
+    * partition, and must not be dirty.
+    * @param first a reference to the first block
+    * @param frames the buffers, one per block
+    */
+   static void assignToRun(Block first, List<Buffer> frames) {
+      Page[] pages = new Page[frames.size()];
+      for (int i=0; i<pages.length; i++)
+         pages[i] = frames.get(i).contents;
+      Page.read(first, pages);
+      for (int i=0; i<pages.length; i++) {
+         Buffer frame = frames.get(i);
+         synchronized (frame) {
+            frame.blk = new Block(first.fileName(), first.number() + i);
+            frame.pins.set(0);
+         }
       }
    }
 
@@ -130,14 +384,48 @@ public class Buffer {
     * Increases the buffer's pin count.
     */
    void pin() {
-      pins++;
+      pins.incrementAndGet();
    }
 
    /**
     * Decreases the buffer's pin count.
+    * @return true if the buffer is still pinned
     */
-   void unpin() {
-      pins--;
+   boolean unpin() {
+      return pins.decrementAndGet() > 0;
+   }
+
+   /**
+    * Increases the buffer's pin count,
+    * but only if the buffer is currently pinned.
+    * A buffer that is pinned cannot be replaced,
+    * so this is safe to call without a latch.
+    * @return true if the pin count was increased
+    */
+   boolean pinIfPinned() {
+      while (true) {
+         int p = pins.get();
+         if (p <= 0)
+            return false;
+         if (pins.compareAndSet(p, p+1))
+            return true;
+      }
+   }
+
+   /**
+    * Decreases the buffer's pin count,
+    * but only if the buffer would remain pinned.
+    * This is safe to call without a latch.
+    * @return true if the pin count was decreased
+    */
+   boolean unpinIfShared() {
+      while (true) {
+         int p = pins.get();
+         if (p <= 1)
+            return false;
+         if (pins.compareAndSet(p, p-1))
+            return true;
+      }
    }
 
    /**
@@ -146,7 +434,36 @@ public class Buffer {
     * @return true if the buffer is pinned
     */
    boolean isPinned() {
-      return pins > 0;
+      return pins.get() > 0;
+   }
+
+   /**
+    * Returns true if the buffer belongs to the ring of an
+    * {@link AccessStrategy}, rather than to the buffer pool.
+    * The value is changed only while the buffer is unpinned,
+    * and is read under the lock of the partition
+    * that holds the buffer's block.
+    * @return true if the buffer is in a ring
+    */
+   boolean inRing() {
+      return inRing;
+   }
+
+   /**
+    * Records whether the buffer belongs to the ring
+    * of an access strategy.
+    * @param inRing true if the buffer is in a ring
+    */
+   void setInRing(boolean inRing) {
+      this.inRing = inRing;
+   }
+
+   /**
+    * Returns true if the buffer is dirty.
+    * @return true if the buffer's page has been modified
+    */
+   boolean isModified() {
+      return modifiedBy >= 0;
    }
 
    /**
@@ -166,11 +483,34 @@ public class Buffer {
     * of the previous page are first written to disk.
     * @param b a reference to the data block
     */
-   void assignToBlock(Block b) {
+   synchronized void assignToBlock(Block b) {
       flush();
       blk = b;
       contents.read(blk);
-      pins = 0;
+      pins.set(0);
+   }
+
+   /**
+    * Makes the buffer hold the specified block
+    * without reading the block's contents.
+    * This method is called only by the {@link TraceSimulator},
+    * which replays buffer requests without doing any I/O.
+    * @param b a reference to the data block
+    */
+   void assignForReplay(Block b) {
+      blk = b;
+      pins.set(0);
+   }
+
+   /**
+    * Records that the specified transaction has modified the page,
+    * in the dirty page table if the transaction has not
+    * already modified it.
+    */
+   private void setModified(int txnum) {
+      if (modifiedBy != txnum && dirtyPages != null)
+         dirtyPages.add(txnum, this);
+      modifiedBy = txnum;
    }
 
    /**
@@ -181,10 +521,10 @@ public class Buffer {
     * @param filename the name of the file
     * @param fmtr a page formatter, used to initialize the page
     */
-   void assignToNew(String filename, PageFormatter fmtr) {
+   synchronized void assignToNew(String filename, PageFormatter fmtr) {
       flush();
       fmtr.format(contents);
       blk = contents.append(filename);
-      pins = 0;
+      pins.set(0);
    }
 }
\ No newline at end of file
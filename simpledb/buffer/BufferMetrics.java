@@ -0,0 +1,211 @@
+package simpledb.buffer;
+
+import simpledb.file.Block;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The event counters of a buffer pool.
+ * Every event is counted for the pool as a whole and
+ * for the file of the block involved.
+ * The counters are striped, so that counting does not
+ * make the threads that pin buffers contend;
+ * they can therefore be left on all the time.
+ * <p>
+ * The temporary tables (whose names begin with "temp")
+ * are counted together, as the single file "temp*",
+ * so that the number of counters stays bounded.
+ * <p>
+ * The counters of a file are found from the number that
+ * {@link Block#key()} assigns to the file, in an array indexed
+ * by that number, so that counting allocates nothing.
+ * Temporary tables have numbers of their own
+ * (see {@link Block#isTempFile(int)}), which go to the
+ * shared counters without indexing the array,
+ * so the array grows only with the permanent files.
+ * @see BufferMgr#stats()
+ */
+class BufferMetrics {
+   private static final String TEMP = "temp*";
+   private Counters pool = new Counters();
+   private Counters temp = new Counters(TEMP);
+   private volatile AtomicReferenceArray<Counters> files = new AtomicReferenceArray<Counters>(16);
+
+   /**
+    * Counts a pin of a block that was already resident.
+    * @param blk the block
+    */
+   void hit(Block blk) {
+      pool.hits.increment();
+      file(blk).hits.increment();
+   }
+
+   /**
+    * Counts a pin of a block that had to be read.
+    * @param blk the block
+    */
+   void miss(Block blk) {
+      pool.misses.increment();
+      file(blk).misses.increment();
+   }
+
+   /**
+    * Counts a block read ahead of its first pin.
+    * @param blk the block
+    */
+   void prefetch(Block blk) {
+      pool.prefetches.increment();
+      file(blk).prefetches.increment();
+   }
+
+   /**
+    * Counts the eviction of a block from its buffer.
+    * @param blk the evicted block
+    */
+   void eviction(Block blk) {
+      pool.evictions.increment();
+      file(blk).evictions.increment();
+   }
+
+   /**
+    * Counts the write of a dirty page to its block.
+    * @param blk the written block
+    */
+   void writeBack(Block blk) {
+      pool.writeBacks.increment();
+      file(blk).writeBacks.increment();
+   }
+
+   /**
+    * Counts a client that had to wait for a buffer.
+    * @param blk the block (or a block of the file) being pinned
+    * @param nanos how long the client waited, in nanoseconds
+    */
+   void pinWait(Block blk, long nanos) {
+      Counters c = file(blk);
+      pool.pinWaits.increment();
+      pool.pinWaitTime.add(nanos);
+      c.pinWaits.increment();
+      c.pinWaitTime.add(nanos);
+   }
+
+   /**
+    * Counts a client that gave up waiting for a buffer.
+    * @param blk the block (or a block of the file) being pinned
+    */
+   void abort(Block blk) {
+      pool.aborts.increment();
+      file(blk).aborts.increment();
+   }
+
+   /**
+    * Returns the statistics of the pool, given its frames.
+    * The frames are examined without any lock,
+    * so the pinned and dirty counts are approximate.
+    * @param size the number of buffers in the pool
+    * @param frames the frames of the pool
+    * @return the statistics of the pool and of its files
+    */
+   BufferStats snapshot(int size, Collection<Buffer> frames) {
+      Map<String,int[]> resident = new HashMap<String,int[]>();
+      int pinned = 0, dirty = 0;
+      for (Buffer buff : frames) {
+         Block blk = buff.block();
+         if (blk == null)
+            continue;
+         String id = file(blk).filename;
+         int[] r = resident.get(id);
+         if (r == null) {
+            r = new int[3];
+            resident.put(id, r);
+         }
+         r[0]++;
+         if (buff.isPinned()) {
+            pinned++;
+            r[1]++;
+         }
+         if (buff.isModified()) {
+            dirty++;
+            r[2]++;
+         }
+      }
+      Map<String,BufferStats> filestats = new TreeMap<String,BufferStats>();
+      List<Counters> counters = new ArrayList<Counters>();
+      AtomicReferenceArray<Counters> fs = files;
+      for (int i=0; i<fs.length(); i++) {
+         Counters c = fs.get(i);
+         if (c != null && c != temp)
+            counters.add(c);
+      }
+      counters.add(temp);
+      for (Counters c : counters) {
+         int[] r = resident.get(c.filename);
+         if (r == null)
+            r = new int[3];
+         filestats.put(c.filename, c.snapshot(r[0], r[1], r[2], null));
+      }
+      return pool.snapshot(size, pinned, dirty, filestats);
+   }
+
+   private Counters file(Block blk) {
+      int id = (int) (blk.key() >>> 32);
+      if (Block.isTempFile(id))
+         return temp;
+      AtomicReferenceArray<Counters> fs = files;
+      Counters c = (id < fs.length()) ? fs.get(id) : null;
+      return (c != null) ? c : addFile(id, blk.fileName());
+   }
+
+   /**
+    * Returns the counters for the specified file number,
+    * creating them if the number has not been seen before.
+    * @param id the number of the file
+    * @param filename the name of the file
+    * @return the counters of the file
+    */
+   private synchronized Counters addFile(int id, String filename) {
+      AtomicReferenceArray<Counters> fs = files;
+      if (id < fs.length() && fs.get(id) != null)
+         return fs.get(id);
+      Counters c = filename.startsWith("temp") ? temp : new Counters(filename);
+      if (id >= fs.length()) {
+         AtomicReferenceArray<Counters> grown =
+               new AtomicReferenceArray<Counters>(Math.max(2 * fs.length(), id + 1));
+         for (int i=0; i<fs.length(); i++)
+            grown.set(i, fs.get(i));
+         grown.set(id, c);
+         files = grown;
+      }
+      else
+         fs.set(id, c);
+      return c;
+   }
+
+   /**
+    * The counters of the pool, or of one file.
+    */
+   private static class Counters {
+      String filename;
+      LongAdder hits = new LongAdder();
+      LongAdder misses = new LongAdder();
+      LongAdder prefetches = new LongAdder();
+      LongAdder evictions = new LongAdder();
+      LongAdder writeBacks = new LongAdder();
+      LongAdder pinWaits = new LongAdder();
+      LongAdder pinWaitTime = new LongAdder(); // nanoseconds
+      LongAdder aborts = new LongAdder();
+
+      Counters() {}
+
+      Counters(String filename) {
+         this.filename = filename;
+      }
+
+      BufferStats snapshot(int buffers, int pinned, int dirty, Map<String,BufferStats> files) {
+         return new BufferStats(buffers, pinned, dirty, hits.sum(), misses.sum(), prefetches.sum(),
+                                evictions.sum(), writeBacks.sum(), pinWaits.sum(),
+                                pinWaitTime.sum() / 1000000, aborts.sum(), files);
+      }
+   }
+}
@@ -1,136 +1,823 @@
 package simpledb.buffer;
 
 import simpledb.file.*;
+import simpledb.server.SimpleDB;
+
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.*;
+import javax.management.*;
 
 /**
  * The publicly-accessible buffer manager.
  * A buffer manager wraps a basic buffer manager, and
  * provides the same methods. The difference is that
- * the methods {@link #pin(Block) pin} and 
+ * the methods {@link #pin(Block) pin} and
  * {@link #pinNew(String, PageFormatter) pinNew}
  * will never return null.
  * If no buffers are currently available, then the
  * calling thread will be placed on a waiting list.
- * The waiting threads are removed from the list when 
- * a buffer becomes available.
+ * The list is first-in first-out: a buffer that becomes
+ * available is handed directly to the thread that has
+ * waited longest, and only that thread is woken.
+ * While threads are waiting, other threads may pin blocks
+ * that are resident, but must wait their turn to replace a buffer.
  * If a thread has been waiting for a buffer for an
  * excessive amount of time (currently, 10 seconds)
  * then a {@link BufferAbortException} is thrown.
+ * <p>
+ * The buffer pool is split into partitions, each of which is
+ * a basic buffer manager with its own lock.
+ * A block always lives in the partition chosen by hashing it,
+ * so threads that use unrelated blocks seldom contend.
+ * When a partition has no replaceable frame, a frame is
+ * stolen from another partition.
+ * <p>
+ * The buffer to replace is chosen by a {@link ReplacementPolicy},
+ * which is selected by name when the buffer manager is created:
+ * "lru-k" (the default), "lru", "clock", "2q", "arc" or "lirs".
+ * The policy orders references by the timestamps of a
+ * {@link ReferenceClock}; by default the clock counts references,
+ * so the order of eviction does not depend on the system time.
+ * <p>
+ * Pinning a block whose buffer is already pinned, and unpinning
+ * a buffer that remains pinned, are lock-free;
+ * only the transitions of a buffer between pinned and unpinned
+ * acquire the partition's lock.
+ * <p>
+ * A {@link PageCleaner} can be started to write dirty buffers
+ * in the background, ahead of their eviction, and a
+ * {@link Prefetcher} to read blocks ahead of sequential scans.
+ * Bulk operations can pin their blocks through an
+ * {@link AccessStrategy}, so that they do not flood the pool.
+ * <p>
+ * The pages of the buffers are slices of a {@link PageArena},
+ * a few large blocks of off-heap memory allocated when the
+ * buffer manager is created.
+ * <p>
+ * The buffer manager counts hits, misses, evictions, write-backs,
+ * pin waits and aborts, for the pool and for each file;
+ * see {@link #stats()} and {@link #registerMBean(String)}.
  * @author Edward Sciore
  */
 public class BufferMgr {
    private static final long MAX_TIME = 10000; // 10 seconds
-   private BasicBufferMgr bufferMgr;
-   
+   private static final int MAX_RUN = 64; // blocks in one vectored read or write
+   private static final long RETAINED_PERIOD = 200000; // references
+   private static final long REF_PERIOD = 10; // references
+   private static final int MIN_PARTITION_SIZE = 8;
+   private BasicBufferMgr[] partitions;
+   private WaitQueue waiters = new WaitQueue();
+   private volatile BufferTrace trace = null;
+   private ReferenceClock clock;
+   private PageCleaner cleaner = null;
+   private double lowWater, highWater;
+   private volatile Prefetcher prefetcher = null;
+   private int numbuffers;
+   private Set<Buffer> ringFrames = Collections.newSetFromMap(new ConcurrentHashMap<Buffer,Boolean>());
+   private BufferMetrics metrics = new BufferMetrics();
+   private DirtyPageTable dirtyPages = new DirtyPageTable();
+   private ObjectName mbeanName = null;
+
    /**
-    * Creates a new buffer manager having the specified 
+    * Creates a new buffer manager having the specified
     * number of buffers.
     * This constructor depends on both the {@link FileMgr} and
-    * {@link simpledb.log.LogMgr LogMgr} objects 
+    * {@link simpledb.log.LogMgr LogMgr} objects
     * that it gets from the class
     * {@link simpledb.server.SimpleDB}.
     * Those objects are created during system initialization.
-    * Thus this constructor cannot be called until 
+    * Thus this constructor cannot be called until
     * {@link simpledb.server.SimpleDB#initFileAndLogMgr(String)} or
     * is called first.
     * @param numbuffers the number of buffer slots to allocate
+    * @param k_param the number of references tracked per block
     */
    public BufferMgr(int numbuffers,int k_param) {
-      bufferMgr = new BasicBufferMgr(numbuffers,k_param);
+      this(numbuffers, k_param, RETAINED_PERIOD);
+   }
+
+   /**
+    * Creates a new buffer manager having the specified
+    * number of buffers, which keeps the reference history
+    * of an evicted block for the specified period.
+    * The pool has one partition per available processor.
+    * @param numbuffers the number of buffer slots to allocate
+    * @param k_param the number of references tracked per block
+    * @param retainedPeriod the retained information period, in references
+    */
+   public BufferMgr(int numbuffers, int k_param, long retainedPeriod) {
+      this(numbuffers, k_param, retainedPeriod,
+           Runtime.getRuntime().availableProcessors());
+   }
+
+   /**
+    * Creates a new buffer manager having the specified
+    * number of buffers, split into at most the specified
+    * number of partitions.
+    * Small pools get fewer partitions, so that each partition
+    * has at least a handful of frames.
+    * @param numbuffers the number of buffer slots to allocate
+    * @param k_param the number of references tracked per block
+    * @param retainedPeriod the retained information period, in references
+    * @param numpartitions the maximum number of partitions
+    */
+   public BufferMgr(int numbuffers, int k_param, long retainedPeriod, int numpartitions) {
+      this(numbuffers, "lru-k", k_param, retainedPeriod, numpartitions);
+   }
+
+   /**
+    * Creates a new buffer manager having the specified
+    * number of buffers, split into at most the specified
+    * number of partitions, that replaces buffers according
+    * to the specified policy.
+    * The last two LRU-K parameters are ignored by the other policies.
+    * References are timestamped by a {@link CounterClock}.
+    * @param numbuffers the number of buffer slots to allocate
+    * @param policy the name of the replacement policy
+    * @param k_param the number of references tracked per block
+    * @param retainedPeriod the retained information period, in references
+    * @param numpartitions the maximum number of partitions
+    */
+   public BufferMgr(int numbuffers, String policy, int k_param, long retainedPeriod, int numpartitions) {
+      this(numbuffers, policy, k_param, REF_PERIOD, retainedPeriod, numpartitions, new CounterClock());
+   }
+
+   /**
+    * Creates a new buffer manager having the specified
+    * number of buffers, split into at most the specified
+    * number of partitions, that replaces buffers according
+    * to the specified policy and timestamps references
+    * with the specified clock.
+    * The LRU-K periods are expressed in the units of the clock,
+    * and are ignored by the other policies.
+    * @param numbuffers the number of buffer slots to allocate
+    * @param policy the name of the replacement policy
+    * @param k_param the number of references tracked per block
+    * @param refPeriod the correlated reference period
+    * @param retainedPeriod the retained information period
+    * @param numpartitions the maximum number of partitions
+    * @param clock the source of reference timestamps
+    */
+   public BufferMgr(int numbuffers, String policy, int k_param, long refPeriod,
+                    long retainedPeriod, int numpartitions, ReferenceClock clock) {
+      this(numbuffers, policy, k_param, refPeriod, retainedPeriod, numpartitions, clock,
+           new PageArena(numbuffers));
+   }
+
+   /**
+    * Creates a new buffer manager having the specified
+    * number of buffers, whose pages are the slices
+    * of the specified arena.
+    * The other arguments are those of the constructor above.
+    * @param numbuffers the number of buffer slots to allocate
+    * @param policy the name of the replacement policy
+    * @param k_param the number of references tracked per block
+    * @param refPeriod the correlated reference period
+    * @param retainedPeriod the retained information period
+    * @param numpartitions the maximum number of partitions
+    * @param clock the source of reference timestamps
+    * @param arena the memory of the buffers' pages, with at least numbuffers pages
+    */
+   public BufferMgr(int numbuffers, String policy, int k_param, long refPeriod,
+                    long retainedPeriod, int numpartitions, ReferenceClock clock,
+                    PageArena arena) {
+      if (arena.size() < numbuffers)
+         throw new RuntimeException("the arena has fewer than " + numbuffers + " pages");
+      this.clock = clock;
+      this.numbuffers = numbuffers;
+      int n = Math.max(1, Math.min(numpartitions, numbuffers / MIN_PARTITION_SIZE));
+      partitions = new BasicBufferMgr[n];
+      int firstpage = 0;
+      for (int i=0; i<n; i++) {
+         int size = numbuffers / n + (i < numbuffers % n ? 1 : 0);
+         partitions[i] = new BasicBufferMgr(size, newPolicy(policy, k_param, refPeriod, retainedPeriod),
+                                            metrics, dirtyPages, arena, firstpage);
+         firstpage += size;
+      }
    }
-   
+
    /**
     * Pins a buffer to the specified block, potentially
     * waiting until a buffer becomes available.
-    * If no buffer becomes available within a fixed 
+    * If no buffer becomes available within a fixed
     * time period, then a {@link BufferAbortException} is thrown.
     * @param blk a reference to a disk block
     * @return the buffer pinned to that block
     */
-   public synchronized Buffer pin(Block blk) {
-      try {
-    	  //wait(3);
-         long timestamp = System.currentTimeMillis();
-         //System.out.print("manager:"+ timestamp) ;
-         Buffer buff = bufferMgr.pin(blk,timestamp);
-         while (buff == null && !waitingTooLong(timestamp)) {
-            wait(MAX_TIME);
-            //System.out.print("manager:"+ System.currentTimeMillis()) ;
-            buff = bufferMgr.pin(blk,timestamp);
+   public Buffer pin(Block blk) {
+      return pin(blk, null);
+   }
+
+   /**
+    * Pins a buffer to the specified block through the
+    * specified access strategy.
+    * If the block is not resident, it is read into a frame
+    * of the strategy's ring, if the ring has a reusable frame.
+    * @param blk a reference to a disk block
+    * @param strategy the access strategy, or null for the default
+    * @return the buffer pinned to that block
+    */
+   public Buffer pin(Block blk, AccessStrategy strategy) {
+      Buffer buff = pinBlock(blk, strategy);
+      BufferTrace t = trace;
+      if (t != null)
+         t.pin(blk);
+      return buff;
+   }
+
+   private Buffer pinBlock(Block blk, AccessStrategy strategy) {
+      long key = blk.key();
+      int home = partitionOf(key);
+      Buffer buff = partitions[home].lookup(key);
+      if (buff != null && buff.pinIfPinned()) {
+         Block b = buff.block();
+         if (b != null && b.key() == key) {
+            metrics.hit(blk);
+            return buff;
          }
-         if (buff == null)
-            throw new BufferAbortException();
-         return buff;
+         release(buff);  // the buffer was reassigned after the lookup
       }
-      catch(InterruptedException e) {
-         throw new BufferAbortException();
+      Prefetcher p = prefetcher;
+      if (p != null)
+         p.accessed(blk);
+      long timestamp = clock.tick();
+      if (strategy != null) {
+         Buffer frame = ringFrame(strategy, timestamp);
+         if (frame != null)
+            return partitions[home].pinRing(frame, blk, timestamp);
       }
+      if (waiters.isEmpty())
+         buff = tryPin(home, blk, timestamp);
+      else
+         buff = partitions[home].pinResident(blk, timestamp);
+      if (buff != null)
+         return buff;
+      Buffer frame = awaitFrame(blk);
+      buff = partitions[home].pin(frame, blk, timestamp);
+      if (buff != frame)
+         handOff();  // the frame was not needed
+      return buff;
    }
-   
+
    /**
-    * Pins a buffer to a new block in the specified file, 
+    * Pins a buffer to a new block in the specified file,
     * potentially waiting until a buffer becomes available.
-    * If no buffer becomes available within a fixed 
+    * If no buffer becomes available within a fixed
     * time period, then a {@link BufferAbortException} is thrown.
     * @param filename the name of the file
     * @param fmtr the formatter used to initialize the page
     * @return the buffer pinned to that block
     */
-   public synchronized Buffer pinNew(String filename, PageFormatter fmtr) {
-      try {
-    	  //wait(3);
-         long timestamp = System.currentTimeMillis();
-         //System.out.print("manager:"+ timestamp) ;
-         Buffer buff = bufferMgr.pinNew(filename, fmtr,timestamp);
-         while (buff == null && !waitingTooLong(timestamp)) {
-            wait(MAX_TIME);
-            //System.out.print("manager:"+ timestamp) ;
-            buff = bufferMgr.pinNew(filename, fmtr,timestamp);
-         }
-         if (buff == null)
-            throw new BufferAbortException();
-         return buff;
-      }
-      catch(InterruptedException e) {
-         throw new BufferAbortException();
+   public Buffer pinNew(String filename, PageFormatter fmtr) {
+      long timestamp = clock.tick();
+      Buffer buff = waiters.isEmpty() ? steal(-1, timestamp) : null;
+      if (buff == null)
+         buff = awaitFrame(new Block(filename, 0));
+      buff.assignToNew(filename, fmtr);
+      partition(buff.block()).pinNew(buff, timestamp);
+      BufferTrace t = trace;
+      if (t != null)
+         t.pinNew(buff.block());
+      return buff;
+   }
+
+   /**
+    * Pins a buffer to a new block in the specified file
+    * through the specified access strategy.
+    * The new block is assigned to a frame of the strategy's ring,
+    * if the ring has a reusable frame.
+    * @param filename the name of the file
+    * @param fmtr the formatter used to initialize the page
+    * @param strategy the access strategy, or null for the default
+    * @return the buffer pinned to that block
+    */
+   public Buffer pinNew(String filename, PageFormatter fmtr, AccessStrategy strategy) {
+      if (strategy == null)
+         return pinNew(filename, fmtr);
+      Buffer frame = ringFrame(strategy, clock.tick());
+      if (frame == null)
+         return pinNew(filename, fmtr);
+      frame.assignToNew(filename, fmtr);
+      partition(frame.block()).pinRingNew(frame);
+      BufferTrace t = trace;
+      if (t != null)
+         t.pinNew(frame.block());
+      return frame;
+   }
+
+   /**
+    * Returns the frames of the specified strategy's ring
+    * to the buffer pool.
+    * The blocks held by a bulk-write ring are written,
+    * and those of a bulk-read ring are kept resident
+    * only if they are pinned.
+    * The strategy can be used again afterwards.
+    * @param strategy the access strategy
+    */
+   public void release(AccessStrategy strategy) {
+      List<Buffer> frames = strategy.clear();
+      if (frames.isEmpty())
+         return;
+      long timestamp = clock.tick();
+      for (Buffer frame : frames) {
+         ringFrames.remove(frame);
+         BasicBufferMgr part = (frame.block() == null) ? partitions[0] : partition(frame.block());
+         part.returnFrame(frame, false, timestamp);
       }
+      handOff();
    }
-   
+
    /**
-    * Unpins the specified buffer. 
+    * Unpins the specified buffer.
     * If the buffer's pin count becomes 0,
-    * then the threads on the wait list are notified.
+    * then the threads on the wait lists are notified.
     * @param buff the buffer to be unpinned
     */
-   public synchronized void unpin(Buffer buff) {
-      bufferMgr.unpin(buff);
-      if (!buff.isPinned())
-         notifyAll();
+   public void unpin(Buffer buff) {
+      BufferTrace t = trace;
+      if (t != null)
+         t.unpin(buff);
+      release(buff);
    }
-   
+
+   /**
+    * Unpins the specified buffer without tracing it,
+    * for a pin that no client asked for.
+    * @param buff the buffer to be unpinned
+    */
+   private void release(Buffer buff) {
+      if (buff.unpinIfShared())
+         return;
+      if (!partition(buff.block()).unpin(buff))
+         return;
+      handOff();
+   }
+
    /**
     * Flushes the dirty buffers modified by the specified transaction.
+    * Only the buffers that the transaction modified are examined,
+    * and their pages are written in the order of their blocks;
+    * the pages of consecutive blocks are written together,
+    * with one vectored write.
+    * No partition is locked.
     * @param txnum the transaction's id number
     */
    public void flushAll(int txnum) {
-      bufferMgr.flushAll(txnum);
+      List<Buffer> run = new ArrayList<Buffer>();
+      Block prev = null;
+      for (Buffer buff : dirtyPages.remove(txnum)) {
+         Block blk = buff.block();
+         boolean adjacent = prev != null && blk != null && blk.key() == prev.key() + 1;
+         if (!adjacent || run.size() == MAX_RUN) {
+            flushRun(run, txnum);
+            run.clear();
+         }
+         run.add(buff);
+         prev = blk;
+      }
+      flushRun(run, txnum);
+   }
+
+   private void flushRun(List<Buffer> run, int txnum) {
+      if (run.size() == 1)
+         run.get(0).flush(txnum);
+      else if (run.size() > 1)
+         Buffer.flush(run, txnum);
    }
-   
+
+   /**
+    * Returns the number of buffers in the pool.
+    * @return the size of the pool
+    */
+   public int size() {
+      return numbuffers;
+   }
+
+   /**
+    * Returns a snapshot of the statistics of the buffer pool,
+    * including those of each file that the pool has used.
+    * @return the statistics of the pool
+    */
+   public BufferStats stats() {
+      List<Buffer> frames = new ArrayList<Buffer>(numbuffers);
+      for (BasicBufferMgr part : partitions)
+         part.frames(frames);
+      frames.addAll(ringFrames);
+      return metrics.snapshot(numbuffers, frames);
+   }
+
+   /**
+    * Registers a {@link BufferPoolMXBean} for this buffer pool
+    * with the platform MBean server, under the specified name.
+    * An MBean already registered under that name
+    * (for example, by an earlier buffer manager) is replaced.
+    * @param name the object name of the MBean, such as "simpledb:type=BufferPool"
+    */
+   public synchronized void registerMBean(String name) {
+      unregisterMBean();
+      try {
+         ObjectName oname = new ObjectName(name);
+         MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+         if (server.isRegistered(oname))
+            server.unregisterMBean(oname);
+         server.registerMBean(new BufferPoolMonitor(this), oname);
+         mbeanName = oname;
+      }
+      catch (JMException e) {
+         throw new RuntimeException("cannot register MBean " + name + ": " + e.getMessage());
+      }
+   }
+
+   /**
+    * Unregisters the MBean of this buffer pool, if it is registered.
+    */
+   public synchronized void unregisterMBean() {
+      if (mbeanName == null)
+         return;
+      try {
+         ManagementFactory.getPlatformMBeanServer().unregisterMBean(mbeanName);
+      }
+      catch (JMException e) {
+         // already unregistered
+      }
+      mbeanName = null;
+   }
+
    /**
     * Returns the number of available (ie unpinned) buffers.
     * @return the number of available buffers
     */
    public int available() {
-      return bufferMgr.available();
+      int avail = 0;
+      for (BasicBufferMgr part : partitions)
+         avail += part.available();
+      return avail;
    }
-   
-   private boolean waitingTooLong(long starttime) {
-      return System.currentTimeMillis() - starttime > MAX_TIME;
+
+   /**
+    * Starts recording every pin, unpin and pinNew
+    * in the specified trace file.
+    * Any trace already being recorded is closed.
+    * @param filename the name of the trace file
+    * @see TraceSimulator
+    */
+   public void startTrace(String filename) {
+      stopTrace();
+      trace = new BufferTrace(filename);
+   }
+
+   /**
+    * Stops recording the trace, and closes its file.
+    */
+   public void stopTrace() {
+      BufferTrace t = trace;
+      trace = null;
+      if (t != null)
+         t.close();
+   }
+
+   /**
+    * Starts a background thread that writes dirty, unpinned buffers
+    * before they are chosen as victims.
+    * In each partition, whenever fewer than the low water mark
+    * of the next victims are clean, the cleaner writes the dirty
+    * buffers among the next victims up to the high water mark.
+    * Any cleaner already running is stopped.
+    * @param lowWater the low water mark, as a fraction of the partition's buffers
+    * @param highWater the high water mark, as a fraction of the partition's buffers
+    * @param interval the time between two rounds of the cleaner, in milliseconds
+    */
+   public synchronized void startCleaner(double lowWater, double highWater, long interval) {
+      stopCleaner();
+      this.lowWater = lowWater;
+      this.highWater = Math.max(lowWater, highWater);
+      cleaner = new PageCleaner(this, interval);
+      Thread t = new Thread(cleaner, "simpledb-page-cleaner");
+      t.setDaemon(true);
+      t.start();
+   }
+
+   /**
+    * Stops the background page cleaner, if it is running.
+    */
+   public synchronized void stopCleaner() {
+      if (cleaner != null)
+         cleaner.stop();
+      cleaner = null;
+   }
+
+   /**
+    * Writes the dirty buffers that each partition's
+    * water marks call for.
+    * The buffers are written without the partition's lock;
+    * a buffer that has been pinned in the meantime is skipped.
+    */
+   void clean() {
+      for (BasicBufferMgr part : partitions) {
+         int size = part.size();
+         int low = Math.max(1, (int) Math.ceil(size * lowWater));
+         int high = Math.max(low, (int) Math.ceil(size * highWater));
+         List<Buffer> dirty = part.toClean(low, high);
+         for (Buffer buff : dirty)
+            if (!buff.isPinned())
+               buff.flush();
+      }
+   }
+
+   /**
+    * Starts a background thread that reads blocks ahead
+    * of sequential scans, and that serves the
+    * {@link #prefetch(String, int, int) prefetch} hints.
+    * The number of blocks read ahead is at most
+    * a quarter of the buffer pool.
+    * Any read-ahead already running is stopped.
+    * @param depth how many blocks to read ahead of a sequential scan
+    */
+   public synchronized void startReadAhead(int depth) {
+      stopReadAhead();
+      Prefetcher p = new Prefetcher(this, Math.max(1, Math.min(depth, numbuffers / 4)));
+      Thread t = new Thread(p, "simpledb-prefetcher");
+      t.setDaemon(true);
+      t.start();
+      prefetcher = p;
+   }
+
+   /**
+    * Stops reading ahead, if read-ahead is running.
+    */
+   public synchronized void stopReadAhead() {
+      if (prefetcher != null)
+         prefetcher.stop();
+      prefetcher = null;
+   }
+
+   /**
+    * Hints that the blocks of the specified file between the
+    * two block numbers (inclusive) will be pinned soon.
+    * The blocks are read asynchronously into unpinned buffers.
+    * The hint is ignored unless read-ahead has been started.
+    * @param filename the name of the file
+    * @param startblk the first block number
+    * @param endblk the last block number
+    */
+   public void prefetch(String filename, int startblk, int endblk) {
+      Prefetcher p = prefetcher;
+      if (p != null)
+         p.request(filename, startblk, endblk);
    }
-   
+
+   /**
+    * Reads the blocks of the specified file between the two
+    * block numbers (inclusive) that are not resident
+    * into unpinned buffers, before they are pinned.
+    * Each sequence of consecutive blocks that are not resident
+    * is read with one vectored read, without any partition's lock.
+    * The frames are stolen from the partitions with the most
+    * available buffers; the reading stops when no frame can be
+    * stolen, or when threads are waiting for frames.
+    * The last block of the file is not read, since it may
+    * have just been appended, and not yet be in the pool.
+    * @param filename the name of the file
+    * @param startblk the first block number
+    * @param endblk the last block number
+    * @see BasicBufferMgr#install(Buffer, long, long)
+    */
+   public void readRun(String filename, int startblk, int endblk) {
+      endblk = Math.min(endblk, SimpleDB.fileMgr().size(filename) - 2);
+      long timestamp = clock.tick();
+      List<Block> blocks = new ArrayList<Block>();
+      List<Buffer> frames = new ArrayList<Buffer>();
+      for (int n=startblk; n<=endblk && waiters.isEmpty(); n++) {
+         Block blk = new Block(filename, n);
+         if (partition(blk).lookup(blk.key()) != null)
+            continue;
+         Buffer frame = steal(-1, timestamp);
+         if (frame == null)
+            break;
+         blocks.add(blk);
+         frames.add(frame);
+      }
+      // stealing a frame evicts a block, so the
+      // evictions are counted once every frame is stolen
+      List<Buffer> run = new ArrayList<Buffer>();
+      List<Long> counts = new ArrayList<Long>();
+      Block first = null;
+      for (int i=0; i<blocks.size(); i++) {
+         Block blk = blocks.get(i);
+         long count = partition(blk).evictions(blk);
+         if (count < 0) {
+            partitions[0].adopt(frames.get(i));  // the block became resident
+            continue;
+         }
+         if (first == null || blk.number() != first.number() + run.size() || run.size() == MAX_RUN) {
+            install(first, run, counts, timestamp);
+            run.clear();
+            counts.clear();
+            first = blk;
+         }
+         run.add(frames.get(i));
+         counts.add(count);
+      }
+      install(first, run, counts, timestamp);
+      handOff();
+   }
+
+   /**
+    * Reads consecutive blocks into the specified frames,
+    * and adds each frame to the partition of its block.
+    */
+   private void install(Block first, List<Buffer> frames, List<Long> counts, long timestamp) {
+      if (frames.isEmpty())
+         return;
+      try {
+         Buffer.assignToRun(first, frames);
+      }
+      catch (RuntimeException e) {
+         // the blocks will be read when they are pinned
+         for (Buffer frame : frames)
+            partitions[0].adopt(frame);
+         return;
+      }
+      for (int i=0; i<frames.size(); i++) {
+         Buffer frame = frames.get(i);
+         partition(frame.block()).install(frame, counts.get(i), timestamp);
+      }
+   }
+
+   /**
+    * Returns a frame of the strategy's ring that is ready to
+    * hold another block, or null if there is none.
+    * A frame of a bulk-read ring that has become dirty is handed
+    * over to the buffer pool rather than written.
+    * While the ring is smaller than its capacity
+    * (and than an eighth of the pool), frames are stolen
+    * from the pool to grow it, unless other threads
+    * are waiting for frames.
+    */
+   private Buffer ringFrame(AccessStrategy strategy, long timestamp) {
+      for (int n=strategy.size(); n>0; n--) {
+         Buffer frame = strategy.next();
+         if (frame.block() == null)
+            return frame;
+         BasicBufferMgr part = partition(frame.block());
+         if (!strategy.writes() && frame.isModified() && !frame.isPinned()) {
+            strategy.remove(frame);
+            ringFrames.remove(frame);
+            part.returnFrame(frame, true, timestamp);
+            handOff();
+         }
+         else if (part.detach(frame))
+            return frame;
+      }
+      int limit = Math.min(strategy.capacity(), numbuffers / 8);
+      if (strategy.size() >= limit || !waiters.isEmpty())
+         return null;
+      Buffer frame = steal(-1, timestamp);
+      if (frame == null)
+         return null;
+      frame.setInRing(true);
+      ringFrames.add(frame);
+      strategy.add(frame);
+      return frame;
+   }
+
+   /**
+    * Waits for a frame to be handed to the calling thread,
+    * for at most 10 seconds.
+    * The returned frame belongs to no partition.
+    * @param blk the block being pinned, or a block of the file being extended
+    * @return the frame
+    */
+   private Buffer awaitFrame(Block blk) {
+      long waitstart = System.nanoTime();
+      WaitQueue.Waiter w = waiters.enqueue(waitstart + MAX_TIME * 1000000);
+      handOff();  // a frame may have become free before the thread was queued
+      Buffer frame = waiters.await(w);
+      metrics.pinWait(blk, System.nanoTime() - waitstart);
+      if (frame == null) {
+         metrics.abort(blk);
+         throw new BufferAbortException();
+      }
+      return frame;
+   }
+
+   /**
+    * Hands replaceable frames to the waiting threads,
+    * oldest first, until no thread is waiting
+    * or no frame can be replaced.
+    * This method is called whenever a frame may have become
+    * replaceable, and after a thread joins the wait list.
+    */
+   private void handOff() {
+      while (!waiters.isEmpty()) {
+         Buffer frame = steal(-1, clock.tick());
+         if (frame == null)
+            return;
+         if (!waiters.handOff(frame)) {
+            // the waiters gave up in the meantime
+            BasicBufferMgr part = (frame.block() == null) ? partitions[0] : partition(frame.block());
+            part.adopt(frame);
+            return;
+         }
+      }
+   }
+
    public void display_blocks()
    {
-	   bufferMgr.display_blocks();
+	   for (BasicBufferMgr part : partitions)
+		   part.display_blocks();
+   }
+
+   /**
+    * Pins the block in its home partition,
+    * stealing a frame from another partition if the home
+    * partition has no replaceable frame.
+    * Returns null if no partition has a replaceable frame.
+    */
+   private Buffer tryPin(int home, Block blk, long timestamp) {
+      Buffer buff = partitions[home].pin(blk, timestamp);
+      if (buff != null)
+         return buff;
+      Buffer frame = steal(home, timestamp);
+      if (frame == null)
+         return null;
+      return partitions[home].pin(frame, blk, timestamp);
+   }
+
+   /**
+    * Releases a replaceable frame from some partition other than
+    * the specified one, preferring the partitions with the most
+    * available frames.
+    * @param exclude the partition to skip, or -1
+    * @return the released frame, or null if there is none
+    */
+   private Buffer steal(int exclude, long timestamp) {
+      boolean[] tried = new boolean[partitions.length];
+      for (int n=0; n<partitions.length; n++) {
+         int best = -1;
+         for (int i=0; i<partitions.length; i++)
+            if (i != exclude && !tried[i]
+                  && (best < 0 || partitions[i].available() > partitions[best].available()))
+               best = i;
+         if (best < 0)
+            return null;
+         tried[best] = true;
+         Buffer frame = partitions[best].release(timestamp);
+         if (frame != null)
+            return frame;
+      }
+      return null;
+   }
+
+   /**
+    * Creates the replacement policy having the specified name.
+    * @param name the name of the policy
+    * @param k_param the number of references tracked per block (LRU-K only)
+    * @param refPeriod the correlated reference period (LRU-K only)
+    * @param retainedPeriod the retained information period (LRU-K only)
+    * @return a new policy object
+    */
+   static ReplacementPolicy newPolicy(String name, int k_param, long refPeriod, long retainedPeriod) {
+      if (name.equalsIgnoreCase("lru-k"))
+         return new LRUKPolicy(k_param, refPeriod, retainedPeriod);
+      else if (name.equalsIgnoreCase("lru"))
+         return new LRUPolicy();
+      else if (name.equalsIgnoreCase("clock"))
+         return new ClockPolicy();
+      else if (name.equalsIgnoreCase("2q"))
+         return new TwoQPolicy();
+      else if (name.equalsIgnoreCase("arc"))
+         return new ARCPolicy();
+      else if (name.equalsIgnoreCase("lirs"))
+         return new LIRSPolicy();
+      else
+         throw new RuntimeException("unknown replacement policy " + name);
+   }
+
+   /**
+    * Creates the reference clock having the specified name:
+    * "counter", which counts references, or "nanotime",
+    * which measures milliseconds with {@link System#nanoTime()}.
+    * @param name the name of the clock
+    * @return a new clock
+    */
+   public static ReferenceClock newClock(String name) {
+      if (name.equalsIgnoreCase("counter"))
+         return new CounterClock();
+      else if (name.equalsIgnoreCase("nanotime"))
+         return new NanoClock();
+      else
+         throw new RuntimeException("unknown reference clock " + name);
+   }
+
+   private BasicBufferMgr partition(Block blk) {
+      return partitions[partitionOf(blk.key())];
+   }
+
+   private int partitionOf(long key) {
+      int h = (int)(key >>> 32) * 31 + (int) key;
+      h ^= (h >>> 16);
+      return (h & Integer.MAX_VALUE) % partitions.length;
    }
-   
 }
@@ -0,0 +1,37 @@
+package simpledb.buffer;
+
+import java.util.Map;
+
+/**
+ * The management interface of a buffer pool.
+ * It is registered with the platform MBean server
+ * by {@link BufferMgr#registerMBean(String)}.
+ * Each attribute is read from a new {@link BufferStats} snapshot.
+ */
+public interface BufferPoolMXBean {
+   /**
+    * Returns the statistics of the pool.
+    * @return a snapshot of the pool's statistics
+    */
+   public BufferStats getStats();
+
+   /**
+    * Returns the statistics of each file used by the pool.
+    * @return a snapshot of the files' statistics, by file name
+    */
+   public Map<String,BufferStats> getFileStats();
+
+   public int getBuffers();
+   public int getPinned();
+   public int getDirty();
+   public double getDirtyRatio();
+   public long getHits();
+   public long getMisses();
+   public double getHitRatio();
+   public long getPrefetches();
+   public long getEvictions();
+   public long getWriteBacks();
+   public long getPinWaits();
+   public long getPinWaitTime();
+   public long getAborts();
+}
@@ -0,0 +1,46 @@
+package simpledb.buffer;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+
+/**
+ * The MBean of a buffer pool.
+ * Like the pool's background tasks, it holds only a weak
+ * reference to its buffer manager, so that a registered MBean
+ * does not keep a discarded buffer manager alive;
+ * the statistics of a discarded pool are all zero.
+ * @see BufferMgr#registerMBean(String)
+ */
+class BufferPoolMonitor implements BufferPoolMXBean {
+   private WeakReference<BufferMgr> bufferMgr;
+
+   /**
+    * Creates the MBean of the specified buffer manager.
+    * @param bm the buffer manager
+    */
+   BufferPoolMonitor(BufferMgr bm) {
+      this.bufferMgr = new WeakReference<BufferMgr>(bm);
+   }
+
+   public BufferStats getStats() {
+      BufferMgr bm = bufferMgr.get();
+      if (bm == null)
+         return new BufferStats(0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, null);
+      return bm.stats();
+   }
+
+   public Map<String,BufferStats> getFileStats() { return getStats().files(); }
+   public int getBuffers()       { return getStats().getBuffers(); }
+   public int getPinned()        { return getStats().getPinned(); }
+   public int getDirty()         { return getStats().getDirty(); }
+   public double getDirtyRatio() { return getStats().getDirtyRatio(); }
+   public long getHits()         { return getStats().getHits(); }
+   public long getMisses()       { return getStats().getMisses(); }
+   public double getHitRatio()   { return getStats().getHitRatio(); }
+   public long getPrefetches()   { return getStats().getPrefetches(); }
+   public long getEvictions()    { return getStats().getEvictions(); }
+   public long getWriteBacks()   { return getStats().getWriteBacks(); }
+   public long getPinWaits()     { return getStats().getPinWaits(); }
+   public long getPinWaitTime()  { return getStats().getPinWaitTime(); }
+   public long getAborts()       { return getStats().getAborts(); }
+}
@@ -0,0 +1,171 @@
+package simpledb.buffer;
+
+import java.util.*;
+
+/**
+ * A snapshot of the statistics of a buffer pool,
+ * or of the part of the pool used by one file.
+ * The event counts accumulate from the creation of the
+ * buffer manager; the buffer counts describe the pool
+ * at the time of the snapshot.
+ * <p>
+ * The accessors follow the JavaBeans naming convention,
+ * so that a snapshot can be returned through JMX
+ * (see {@link BufferPoolMXBean}).
+ * @see BufferMgr#stats()
+ */
+public class BufferStats {
+   private int buffers, pinned, dirty;
+   private long hits, misses, prefetches, evictions, writeBacks, pinWaits, pinWaitTime, aborts;
+   private Map<String,BufferStats> files;
+
+   BufferStats(int buffers, int pinned, int dirty, long hits, long misses,
+               long prefetches, long evictions, long writeBacks, long pinWaits, long pinWaitTime,
+               long aborts, Map<String,BufferStats> files) {
+      this.buffers = buffers;
+      this.pinned = pinned;
+      this.dirty = dirty;
+      this.hits = hits;
+      this.misses = misses;
+      this.prefetches = prefetches;
+      this.evictions = evictions;
+      this.writeBacks = writeBacks;
+      this.pinWaits = pinWaits;
+      this.pinWaitTime = pinWaitTime;
+      this.aborts = aborts;
+      this.files = (files == null) ? Collections.<String,BufferStats>emptyMap()
+                                   : Collections.unmodifiableMap(files);
+   }
+
+   /**
+    * Returns the number of buffers in the pool,
+    * or the number of buffers holding blocks of the file.
+    * @return the number of buffers
+    */
+   public int getBuffers() {
+      return buffers;
+   }
+
+   /**
+    * Returns the number of buffers that are pinned.
+    * @return the number of pinned buffers
+    */
+   public int getPinned() {
+      return pinned;
+   }
+
+   /**
+    * Returns the number of buffers whose page has been
+    * modified and not yet written.
+    * @return the number of dirty buffers
+    */
+   public int getDirty() {
+      return dirty;
+   }
+
+   /**
+    * Returns the fraction of the buffers that are dirty.
+    * @return the dirty ratio, between 0 and 1
+    */
+   public double getDirtyRatio() {
+      return (buffers == 0) ? 0.0 : (double) dirty / buffers;
+   }
+
+   /**
+    * Returns the number of pins of a block that was resident.
+    * @return the number of hits
+    */
+   public long getHits() {
+      return hits;
+   }
+
+   /**
+    * Returns the number of pins of a block that had to be read.
+    * Blocks read ahead by the prefetcher are not counted,
+    * and neither are new blocks.
+    * @return the number of misses
+    */
+   public long getMisses() {
+      return misses;
+   }
+
+   /**
+    * Returns the number of blocks read ahead of their first pin.
+    * A block that was read ahead counts as a hit when it is pinned.
+    * @return the number of blocks read ahead
+    */
+   public long getPrefetches() {
+      return prefetches;
+   }
+
+   /**
+    * Returns the fraction of the pins that were hits.
+    * @return the hit ratio, between 0 and 1
+    */
+   public double getHitRatio() {
+      long refs = hits + misses;
+      return (refs == 0) ? 0.0 : (double) hits / refs;
+   }
+
+   /**
+    * Returns the number of blocks evicted from their buffer
+    * to make room for another block.
+    * Blocks are evicted for misses, for new blocks,
+    * and for the blocks read ahead.
+    * @return the number of evictions
+    */
+   public long getEvictions() {
+      return evictions;
+   }
+
+   /**
+    * Returns the number of dirty pages written to disk,
+    * whether on eviction, by the page cleaner, or at commit.
+    * @return the number of write-backs
+    */
+   public long getWriteBacks() {
+      return writeBacks;
+   }
+
+   /**
+    * Returns the number of pins that had to wait for a buffer.
+    * @return the number of pin waits
+    */
+   public long getPinWaits() {
+      return pinWaits;
+   }
+
+   /**
+    * Returns the total time spent waiting for buffers.
+    * @return the wait time, in milliseconds
+    */
+   public long getPinWaitTime() {
+      return pinWaitTime;
+   }
+
+   /**
+    * Returns the number of pins that gave up waiting,
+    * and threw a {@link BufferAbortException}.
+    * @return the number of aborts
+    */
+   public long getAborts() {
+      return aborts;
+   }
+
+   /**
+    * Returns the statistics of each file used by the pool,
+    * by file name.
+    * The map is empty for the statistics of a file.
+    * @return the statistics of the files
+    */
+   public Map<String,BufferStats> files() {
+      return files;
+   }
+
+   public String toString() {
+      return String.format("buffers=%d pinned=%d dirty=%d hits=%d misses=%d hitratio=%.4f "
+                         + "prefetches=%d evictions=%d writebacks=%d pinwaits=%d pinwaittime=%dms aborts=%d",
+                           buffers, pinned, dirty, hits, misses, getHitRatio(),
+                           prefetches, evictions, writeBacks, pinWaits, pinWaitTime, aborts);
+   }
+}
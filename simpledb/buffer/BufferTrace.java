@@ -0,0 +1,108 @@
+package simpledb.buffer;
+
+import simpledb.file.Block;
+import java.io.*;
+import java.util.*;
+
+/**
+ * A binary trace of the requests made to a buffer manager.
+ * Each pin, unpin and pinNew is written as one record,
+ * stamped with a logical timestamp that increases by one per record.
+ * The trace can be replayed by the {@link TraceSimulator}.
+ * <p>
+ * The file begins with the integer {@link #MAGIC}.
+ * Each record begins with a one-byte type:
+ * <ul>
+ * <li>{@link #FILE}: an integer file id and the file's name (as UTF),
+ *     written before the first record that refers to the file;
+ * <li>{@link #PIN} and {@link #PIN_NEW}: a long timestamp,
+ *     an integer file id and an integer block number;
+ * <li>{@link #UNPIN}: the same, followed by a byte that is 1
+ *     if the buffer had been modified.
+ * </ul>
+ */
+public class BufferTrace {
+   public static final int MAGIC = 0x53444254; // "SDBT"
+   public static final byte FILE = 0, PIN = 1, UNPIN = 2, PIN_NEW = 3;
+
+   private DataOutputStream out;
+   private Set<Integer> files = new HashSet<Integer>();
+   private long time = 0;
+
+   /**
+    * Creates a trace that is written to the specified file.
+    * @param filename the name of the trace file
+    */
+   public BufferTrace(String filename) {
+      try {
+         out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filename), 1 << 16));
+         out.writeInt(MAGIC);
+      }
+      catch (IOException e) {
+         throw new RuntimeException("cannot create trace " + filename);
+      }
+   }
+
+   /**
+    * Records a pin of the specified block.
+    * @param blk the pinned block
+    */
+   synchronized void pin(Block blk) {
+      write(PIN, blk);
+   }
+
+   /**
+    * Records a pin of a newly-appended block.
+    * @param blk the new block
+    */
+   synchronized void pinNew(Block blk) {
+      write(PIN_NEW, blk);
+   }
+
+   /**
+    * Records an unpin of the specified buffer.
+    * @param buff the unpinned buffer
+    */
+   synchronized void unpin(Buffer buff) {
+      if (write(UNPIN, buff.block()))
+         writeByte(buff.isModified() ? 1 : 0);
+   }
+
+   /**
+    * Writes any buffered records and closes the trace file.
+    */
+   synchronized void close() {
+      try {
+         out.close();
+      }
+      catch (IOException e) {
+         throw new RuntimeException("cannot close trace");
+      }
+   }
+
+   private boolean write(byte type, Block blk) {
+      try {
+         int fileid = (int) (blk.key() >>> 32);
+         if (files.add(fileid)) {
+            out.writeByte(FILE);
+            out.writeInt(fileid);
+            out.writeUTF(blk.fileName());
+         }
+         out.writeByte(type);
+         out.writeLong(++time);
+         out.writeInt(fileid);
+         out.writeInt(blk.number());
+         return true;
+      }
+      catch (IOException e) {
+         return false;  // a trace is best-effort, and must not fail the request
+      }
+   }
+
+   private void writeByte(int b) {
+      try {
+         out.writeByte(b);
+      }
+      catch (IOException e) {}
+   }
+}
@@ -0,0 +1,90 @@
+package simpledb.buffer;
+
+import java.util.*;
+
+/**
+ * The CLOCK replacement policy.
+ * The buffers form a circular list, and each has a reference bit
+ * that is set when its block is referenced or its buffer is unpinned.
+ * The clock hand sweeps the list, clearing set bits,
+ * and replaces the first unpinned buffer whose bit is clear.
+ */
+class ClockPolicy implements ReplacementPolicy {
+   private List<Frame> ring = new ArrayList<Frame>();
+   private Map<Buffer,Frame> frames = new HashMap<Buffer,Frame>();
+   private int hand = 0;
+
+   public void resize(int numbuffs) {}
+
+   public void onHit(Buffer buff, long cur_time) {
+      frames.get(buff).ref = true;
+   }
+
+   public void onMiss(Buffer buff, long cur_time) {
+      Frame f = frames.get(buff);
+      if (f == null) {
+         f = new Frame(buff);
+         frames.put(buff, f);
+         ring.add(f);
+      }
+      f.resident = true;
+      f.ref = true;
+   }
+
+   public void onUnpin(Buffer buff) {
+      frames.get(buff).ref = true;
+   }
+
+   /**
+    * Sweeps the clock at most twice around,
+    * so that every reference bit can be cleared once.
+    * @see simpledb.buffer.ReplacementPolicy#chooseVictim(long)
+    */
+   public Buffer chooseVictim(long cur_time) {
+      for (int n=0; n<2*ring.size(); n++) {
+         Frame f = ring.get(hand);
+         hand = (hand + 1) % ring.size();
+         if (!f.resident || f.buff.isPinned())
+            continue;
+         if (f.ref)
+            f.ref = false;
+         else {
+            f.resident = false;
+            return f.buff;
+         }
+      }
+      return null;
+   }
+
+   /**
+    * Follows the hand around the clock, taking the frames
+    * whose reference bit is clear, and then those whose bit is set
+    * (which the next sweep would clear).
+    * @see simpledb.buffer.ReplacementPolicy#nextVictims(int)
+    */
+   public List<Buffer> nextVictims(int n) {
+      List<Buffer> result = new ArrayList<Buffer>(n);
+      for (int pass=0; pass<2; pass++)
+         for (int i=0; i<ring.size() && result.size()<n; i++) {
+            Frame f = ring.get((hand + i) % ring.size());
+            if (f.resident && !f.buff.isPinned() && f.ref == (pass == 1))
+               result.add(f.buff);
+         }
+      return result;
+   }
+
+   /**
+    * A position on the clock.
+    * A buffer that has been replaced, or that has moved
+    * to another partition, keeps its position but is not resident.
+    */
+   private static class Frame {
+      Buffer buff;
+      boolean ref = false;
+      boolean resident = false;
+
+      Frame(Buffer buff) {
+         this.buff = buff;
+      }
+   }
+}
@@ -0,0 +1,18 @@
+package simpledb.buffer;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A clock that counts block references.
+ * Each reference gets the next integer, so no two references
+ * have the same timestamp, and the order of eviction does not
+ * depend on how fast the system runs.
+ * This is the default clock of the buffer manager.
+ */
+public class CounterClock implements ReferenceClock {
+   private AtomicLong count = new AtomicLong();
+
+   public long tick() {
+      return count.incrementAndGet();
+   }
+}
@@ -0,0 +1,62 @@
+package simpledb.buffer;
+
+import simpledb.file.Block;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The buffers that each transaction has modified,
+ * indexed by transaction number.
+ * A buffer is added when a transaction modifies it,
+ * and the transaction's buffers are removed together
+ * when they are flushed; so the cost of flushing a transaction's
+ * buffers depends on the size of the transaction,
+ * not on the size of the buffer pool.
+ * <p>
+ * An entry may be stale: the buffer may since have been
+ * written, or modified by another transaction.
+ * @see BufferMgr#flushAll(int)
+ */
+class DirtyPageTable {
+   private ConcurrentHashMap<Integer,Set<Buffer>> pages = new ConcurrentHashMap<Integer,Set<Buffer>>();
+
+   /**
+    * Records that the specified transaction has modified the buffer.
+    * @param txnum the id of the transaction
+    * @param buff the modified buffer
+    */
+   void add(int txnum, Buffer buff) {
+      Set<Buffer> dirty = pages.get(txnum);
+      if (dirty == null) {
+         pages.putIfAbsent(txnum, Collections.newSetFromMap(new ConcurrentHashMap<Buffer,Boolean>()));
+         dirty = pages.get(txnum);
+      }
+      dirty.add(buff);
+   }
+
+   /**
+    * Removes the buffers modified by the specified transaction,
+    * and returns them in the order of their blocks,
+    * so that the blocks of each file are written in ascending order.
+    * @param txnum the id of the transaction
+    * @return the buffers modified by the transaction
+    */
+   List<Buffer> remove(int txnum) {
+      Set<Buffer> dirty = pages.remove(txnum);
+      if (dirty == null)
+         return Collections.emptyList();
+      // the blocks can change while sorting, so the keys are read first
+      final Map<Buffer,Long> keys = new HashMap<Buffer,Long>();
+      for (Buffer buff : dirty) {
+         Block blk = buff.block();
+         keys.put(buff, (blk == null) ? -1L : blk.key());
+      }
+      List<Buffer> buffs = new ArrayList<Buffer>(keys.keySet());
+      Collections.sort(buffs, new Comparator<Buffer>() {
+         public int compare(Buffer b1, Buffer b2) {
+            return Long.compare(keys.get(b1), keys.get(b2));
+         }
+      });
+      return buffs;
+   }
+}
@@ -5,6 +5,8 @@ import simpledb.file.Block;
 public class HistBlock {
 	Block Blockname;
 	long[] block_timestamp;
+	LastOfBlock last;
+	boolean resident = false;
 
 	
 	public HistBlock(){}
@@ -17,5 +19,6 @@ public class HistBlock {
 		{
 			block_timestamp[i] = 0;
 		}
+		last = new LastOfBlock(bname);
 	}
 }
@@ -0,0 +1,100 @@
+package simpledb.buffer;
+
+import simpledb.file.Block;
+import java.util.*;
+
+/**
+ * The LRU-K reference history of blocks, keyed by block.
+ * History is kept for resident blocks and also for blocks
+ * that have been evicted, so that a block which is re-read soon
+ * after its eviction keeps its backward K-distance.
+ * The history of a non-resident block is discarded once its last
+ * reference is older than the retained information period.
+ * Entries are kept in order of their last reference, so that
+ * expired entries are found at the head of the table.
+ * Expired entries are purged as blocks are referenced,
+ * once every retained information period of references,
+ * so the cost of purging is spread over the references.
+ * The table is not synchronized; its methods must be
+ * called while holding the latch of the owning buffer manager.
+ */
+class HistoryTable {
+   private int k;
+   private long retainedPeriod;
+   private long latest = 0;
+   private long nextPurge;
+   private LinkedHashMap<Block,HistBlock> history = new LinkedHashMap<Block,HistBlock>();
+
+   /**
+    * Creates an empty history table.
+    * @param k the number of references tracked per block
+    * @param retainedPeriod the retained information period
+    */
+   HistoryTable(int k, long retainedPeriod) {
+      this.k = k;
+      this.retainedPeriod = retainedPeriod;
+      nextPurge = Math.max(retainedPeriod, 1);
+   }
+
+   /**
+    * Returns the history of the specified block,
+    * creating an empty history if the block has none.
+    * The entry becomes the most recently referenced one in the table,
+    * and so the caller is expected to record a reference at the
+    * specified time.
+    * Expired history is purged first if the retained information
+    * period has passed since the last purge.
+    * @param blk a reference to a disk block
+    * @param cur_time the time of the reference
+    * @return the history of the block
+    */
+   HistBlock reference(Block blk, long cur_time) {
+      if (cur_time > latest)
+         latest = cur_time;
+      if (latest >= nextPurge) {
+         purge();
+         nextPurge = latest + Math.max(retainedPeriod, 1);
+      }
+      HistBlock hist = history.remove(blk);
+      if (hist == null)
+         hist = new HistBlock(blk, k);
+      history.put(blk, hist);
+      return hist;
+   }
+
+   /**
+    * Marks the history of the specified block as belonging
+    * (or no longer belonging) to a block in the buffer pool.
+    * The history of a resident block is never discarded.
+    * @param hist the history of a block
+    * @param resident true if the block is in the buffer pool
+    */
+   void setResident(HistBlock hist, boolean resident) {
+      hist.resident = resident;
+   }
+
+   /**
+    * Discards the history of every non-resident block
+    * whose last reference is older than the retained information period,
+    * relative to the latest reference seen by the table.
+    */
+   void purge() {
+      long cutoff = latest - retainedPeriod;
+      Iterator<HistBlock> iter = history.values().iterator();
+      while (iter.hasNext()) {
+         HistBlock hist = iter.next();
+         if (hist.last.last_timestamp >= cutoff)
+            break;
+         if (!hist.resident)
+            iter.remove();
+      }
+   }
+
+   /**
+    * Returns the number of blocks having a history.
+    * @return the size of the table
+    */
+   int size() {
+      return history.size();
+   }
+}
@@ -0,0 +1,177 @@
+package simpledb.buffer;
+
+import java.util.*;
+
+/**
+ * The LIRS replacement policy (Jiang and Zhang).
+ * Blocks are classified by their inter-reference recency:
+ * LIR blocks, which have been re-referenced recently, occupy
+ * most of the buffers, and HIR blocks occupy the rest.
+ * The stack S holds the LIR blocks together with recently
+ * referenced HIR blocks, whether resident or not,
+ * and its bottom is always a LIR block.
+ * The queue Q holds the resident HIR blocks,
+ * and its front is the next victim.
+ * An HIR block that is referenced again while still in S
+ * becomes LIR, and the LIR block at the bottom of S becomes HIR.
+ * <p>
+ * About 1% of the buffers (at least one) are reserved for HIR blocks.
+ * S remembers at most three times as many blocks as there are buffers.
+ * If every resident HIR block is pinned, the victim is the
+ * unpinned LIR block nearest the bottom of S.
+ */
+class LIRSPolicy implements ReplacementPolicy {
+   private int c = 1, lirLimit = 1, lirCount = 0;
+   private Map<Long,Entry> entries = new HashMap<Long,Entry>();
+   private LinkedHashMap<Long,Entry> stack = new LinkedHashMap<Long,Entry>();
+   private LinkedHashMap<Long,Entry> queue = new LinkedHashMap<Long,Entry>();
+
+   public void resize(int numbuffs) {
+      c = Math.max(1, numbuffs);
+      lirLimit = Math.max(1, c - Math.max(1, c / 100));
+      while (lirCount > lirLimit && !stack.isEmpty())
+         demoteBottom();
+   }
+
+   public void onHit(Buffer buff, long cur_time) {
+      Entry e = entries.get(buff.block().key());
+      if (e.lir) {
+         boolean atBottom = stack.keySet().iterator().next() == e.key;
+         moveToTop(e);
+         if (atBottom)
+            prune();
+      }
+      else if (stack.containsKey(e.key)) {
+         queue.remove(e.key);
+         makeLIR(e);
+      }
+      else {
+         moveToTop(e);
+         queue.remove(e.key);
+         queue.put(e.key, e);
+      }
+   }
+
+   public void onMiss(Buffer buff, long cur_time) {
+      long key = buff.block().key();
+      Entry e = entries.get(key);
+      if (e == null) {
+         e = new Entry(key);
+         entries.put(key, e);
+      }
+      e.buff = buff;
+      if (lirCount < lirLimit || stack.containsKey(key))
+         makeLIR(e);
+      else {
+         moveToTop(e);
+         queue.put(key, e);
+      }
+      trimStack();
+   }
+
+   public void onUnpin(Buffer buff) {}
+
+   public Buffer chooseVictim(long cur_time) {
+      for (Entry e : queue.values())
+         if (!e.buff.isPinned()) {
+            queue.remove(e.key);
+            Buffer buff = e.buff;
+            e.buff = null;
+            if (!stack.containsKey(e.key))
+               entries.remove(e.key);
+            return buff;
+         }
+      for (Entry e : stack.values())
+         if (e.lir && !e.buff.isPinned()) {
+            stack.remove(e.key);
+            entries.remove(e.key);
+            e.lir = false;
+            lirCount--;
+            prune();
+            return e.buff;
+         }
+      return null;
+   }
+
+   public List<Buffer> nextVictims(int n) {
+      List<Buffer> result = new ArrayList<Buffer>(n);
+      for (Entry e : queue.values()) {
+         if (result.size() >= n)
+            return result;
+         if (!e.buff.isPinned())
+            result.add(e.buff);
+      }
+      for (Entry e : stack.values()) {
+         if (result.size() >= n)
+            break;
+         if (e.lir && !e.buff.isPinned())
+            result.add(e.buff);
+      }
+      return result;
+   }
+
+   private void makeLIR(Entry e) {
+      e.lir = true;
+      lirCount++;
+      moveToTop(e);
+      while (lirCount > lirLimit)
+         demoteBottom();
+   }
+
+   /**
+    * Turns the LIR block at the bottom of S into a resident HIR block.
+    */
+   private void demoteBottom() {
+      Entry bottom = stack.values().iterator().next();
+      stack.remove(bottom.key);
+      bottom.lir = false;
+      lirCount--;
+      queue.put(bottom.key, bottom);
+      prune();
+   }
+
+   /**
+    * Removes HIR blocks from the bottom of S until a LIR block is there.
+    */
+   private void prune() {
+      Iterator<Entry> iter = stack.values().iterator();
+      while (iter.hasNext()) {
+         Entry e = iter.next();
+         if (e.lir)
+            return;
+         iter.remove();
+         if (e.buff == null)
+            entries.remove(e.key);
+      }
+   }
+
+   /**
+    * Forgets the oldest non-resident HIR blocks once S
+    * remembers too many blocks.
+    */
+   private void trimStack() {
+      Iterator<Entry> iter = stack.values().iterator();
+      while (stack.size() > 3*c && iter.hasNext()) {
+         Entry e = iter.next();
+         if (e.buff == null) {
+            iter.remove();
+            entries.remove(e.key);
+         }
+      }
+   }
+
+   private void moveToTop(Entry e) {
+      stack.remove(e.key);
+      stack.put(e.key, e);
+   }
+
+   private static class Entry {
+      long key;
+      Buffer buff;
+      boolean lir = false;
+
+      Entry(long key) {
+         this.key = key;
+      }
+   }
+}
@@ -0,0 +1,94 @@
+package simpledb.buffer;
+
+import simpledb.file.Block;
+import java.util.List;
+
+/**
+ * The LRU-K replacement policy.
+ * The victim is the unpinned buffer whose block has the
+ * maximum backward K-distance, among those blocks that
+ * have not been referenced within the correlated reference period.
+ * The reference history of each block is kept in a {@link HistoryTable},
+ * and the eviction order in an {@link LRUKQueue}.
+ */
+class LRUKPolicy implements ReplacementPolicy {
+   private int k;
+   private long refPeriod;
+   private LRUKQueue victims;
+   private HistoryTable history;
+
+   /**
+    * Creates an LRU-K policy.
+    * @param k the number of references tracked per block
+    * @param refPeriod the correlated reference period
+    * @param retainedPeriod how long the history of an evicted block is kept
+    */
+   LRUKPolicy(int k, long refPeriod, long retainedPeriod) {
+      this.k = k;
+      this.refPeriod = refPeriod;
+      victims = new LRUKQueue(k, refPeriod);
+      history = new HistoryTable(k, retainedPeriod);
+   }
+
+   public void resize(int numbuffs) {}
+
+   /**
+    * Updates the history of the referenced block.
+    * A reference within the correlated reference period only updates LAST(p);
+    * otherwise the history is shifted by the correlation period of the
+    * previous references and HIST(p,1) becomes the current time.
+    * @see simpledb.buffer.ReplacementPolicy#onHit(simpledb.buffer.Buffer, long)
+    */
+   public void onHit(Buffer buff, long cur_time) {
+      victims.pin(buff);
+      HistBlock hist = history.reference(buff.block(), cur_time);
+      long last_p = hist.last.last_timestamp;
+      if (cur_time - last_p > refPeriod) {
+         // a new, uncorrelated reference
+         long cor_per_ref_page = last_p - hist.block_timestamp[k-1];
+         for (int i=0; i<k-1; i++) {
+            long t = hist.block_timestamp[i+1];
+            hist.block_timestamp[i] = (t == 0) ? 0 : t + cor_per_ref_page;
+         }
+         hist.block_timestamp[k-1] = cur_time;
+      }
+      hist.last.last_timestamp = cur_time;
+      victims.referenced(buff);
+   }
+
+   /**
+    * Shifts the history of the newly-read block,
+    * and makes HIST(p,1) and LAST(p) the current time.
+    * @see simpledb.buffer.ReplacementPolicy#onMiss(simpledb.buffer.Buffer, long)
+    */
+   public void onMiss(Buffer buff, long cur_time) {
+      Block blk = buff.block();
+      HistBlock hist = history.reference(blk, cur_time);
+      for (int i=0; i<k-1; i++)
+         hist.block_timestamp[i] = hist.block_timestamp[i+1];
+      hist.block_timestamp[k-1] = cur_time;
+      hist.last.last_timestamp = cur_time;
+      history.setResident(hist, true);
+      victims.assign(buff, hist);
+   }
+
+   public void onUnpin(Buffer buff) {
+      victims.unpin(buff);
+   }
+
+   /**
+    * Chooses the victim from the eviction order.
+    * The history of the victim's block is retained, but may now expire.
+    * @see simpledb.buffer.ReplacementPolicy#chooseVictim(long)
+    */
+   public Buffer chooseVictim(long cur_time) {
+      Buffer buff = victims.chooseVictim(cur_time);
+      if (buff != null)
+         history.setResident(victims.history(buff), false);
+      return buff;
+   }
+
+   public List<Buffer> nextVictims(int n) {
+      return victims.nextVictims(n);
+   }
+}
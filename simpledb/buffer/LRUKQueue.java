@@ -0,0 +1,210 @@
+package simpledb.buffer;
+
+import java.util.*;
+
+/**
+ * The eviction order of the frames in the buffer pool
+ * under the LRU-K replacement policy.
+ * A frame is a replacement candidate only if it is unpinned
+ * and the last reference to its block is older than the
+ * correlated reference period.
+ * Resident frames still inside their correlated reference period
+ * are kept in a list ordered by LAST(q); as time passes they are
+ * moved off the head of that list into a heap of candidates
+ * ordered by the number of references to the block and by its
+ * backward K-distance HIST(q,K).
+ * Thus choosing a victim costs O(log n) in the size of the pool.
+ * <p>
+ * If every unpinned frame is still inside its correlated reference
+ * period, the one whose block was referenced least recently is chosen,
+ * so that a small pool never waits for time to pass.
+ */
+class LRUKQueue {
+   private int k;
+   private long refPeriod;
+   private int nextId = 0;
+   private Map<Buffer,Entry> entries = new HashMap<Buffer,Entry>();
+   private LinkedHashSet<Entry> correlated = new LinkedHashSet<Entry>();
+   private TreeSet<Entry> eligible = new TreeSet<Entry>(new EntryComparator());
+
+   /**
+    * Creates an empty eviction order.
+    * @param k the number of references tracked per block
+    * @param refPeriod the correlated reference period
+    */
+   LRUKQueue(int k, long refPeriod) {
+      this.k = k;
+      this.refPeriod = refPeriod;
+   }
+
+   /**
+    * Records that the specified frame now holds a block
+    * having the specified history.
+    * The frame is assumed to have just been referenced.
+    * @param buff the frame
+    * @param hist the reference history of the frame's block
+    */
+   void assign(Buffer buff, HistBlock hist) {
+      Entry e = entries.get(buff);
+      if (e == null) {
+         e = new Entry(buff, nextId++);
+         entries.put(buff, e);
+      }
+      detach(e);
+      e.hist = hist;
+      correlated.add(e);
+   }
+
+   /**
+    * Returns the history of the block last assigned to the specified frame.
+    * @param buff the frame
+    * @return the history of the frame's block
+    */
+   HistBlock history(Buffer buff) {
+      return entries.get(buff).hist;
+   }
+
+   /**
+    * Removes the specified frame from the candidates for replacement.
+    * This method must be called when the frame's pin count becomes
+    * nonzero, and before the history of its block is modified.
+    * @param buff the frame
+    */
+   void pin(Buffer buff) {
+      Entry e = entries.get(buff);
+      if (e.aged)
+         eligible.remove(e);
+   }
+
+   /**
+    * Makes the specified frame a candidate for replacement,
+    * once its correlated reference period has expired.
+    * This method must be called when the frame's pin count becomes 0.
+    * @param buff the frame
+    */
+   void unpin(Buffer buff) {
+      Entry e = entries.get(buff);
+      if (e.aged)
+         eligible.add(e);
+   }
+
+   /**
+    * Records that the history of the specified frame's block
+    * has been updated because of a new reference.
+    * @param buff the frame
+    */
+   void referenced(Buffer buff) {
+      Entry e = entries.get(buff);
+      detach(e);
+      correlated.add(e);
+   }
+
+   /**
+    * Removes and returns the unpinned frame having the
+    * maximum backward K-distance, among those frames whose
+    * last reference is older than the correlated reference period.
+    * If there is no such frame, the unpinned frame whose last
+    * reference is oldest is chosen instead.
+    * Returns null if every frame is pinned.
+    * @param cur_time the current time
+    * @return the victim frame, or null
+    */
+   Buffer chooseVictim(long cur_time) {
+      Iterator<Entry> iter = correlated.iterator();
+      while (iter.hasNext()) {
+         Entry e = iter.next();
+         if (cur_time - e.hist.last.last_timestamp <= refPeriod)
+            break;
+         iter.remove();
+         e.aged = true;
+         if (!e.buff.isPinned())
+            eligible.add(e);
+      }
+      Entry victim = eligible.pollFirst();
+      if (victim != null) {
+         victim.aged = false;
+         return victim.buff;
+      }
+      for (Entry e : correlated)
+         if (!e.buff.isPinned()) {
+            correlated.remove(e);
+            return e.buff;
+         }
+      return null;
+   }
+
+   /**
+    * Returns up to n unpinned frames in eviction order:
+    * the candidates for replacement, and then the frames
+    * still inside their correlated reference period,
+    * least recently referenced first.
+    * @param n the maximum number of frames to return
+    * @return the next victims
+    */
+   List<Buffer> nextVictims(int n) {
+      List<Buffer> result = new ArrayList<Buffer>(n);
+      for (Entry e : eligible) {
+         if (result.size() >= n)
+            return result;
+         result.add(e.buff);
+      }
+      for (Entry e : correlated) {
+         if (result.size() >= n)
+            break;
+         if (!e.buff.isPinned())
+            result.add(e.buff);
+      }
+      return result;
+   }
+
+   private void detach(Entry e) {
+      if (e.aged)
+         eligible.remove(e);
+      else
+         correlated.remove(e);
+      e.aged = false;
+   }
+
+   /**
+    * Returns the number of references recorded for the block,
+    * which is at most K.
+    */
+   private int refCount(HistBlock hist) {
+      int refs = 0;
+      for (int i=k-1; i>=0 && hist.block_timestamp[i] != 0; i--)
+         refs++;
+      return refs;
+   }
+
+   private class Entry {
+      Buffer buff;
+      int id;
+      HistBlock hist;
+      boolean aged = false;
+
+      Entry(Buffer buff, int id) {
+         this.buff = buff;
+         this.id = id;
+      }
+   }
+
+   /**
+    * Orders candidates so that blocks with fewer references
+    * (and thus an infinite backward K-distance) come first;
+    * among blocks with the same number of references,
+    * the one whose oldest recorded reference is earliest comes first.
+    */
+   private class EntryComparator implements Comparator<Entry> {
+      public int compare(Entry e1, Entry e2) {
+         int r1 = refCount(e1.hist);
+         int r2 = refCount(e2.hist);
+         if (r1 != r2)
+            return r1 < r2 ? -1 : 1;
+         long t1 = e1.hist.block_timestamp[k-r1];
+         long t2 = e2.hist.block_timestamp[k-r2];
+         if (t1 != t2)
+            return t1 < t2 ? -1 : 1;
+         return e1.id - e2.id;
+      }
+   }
+}
@@ -0,0 +1,44 @@
+package simpledb.buffer;
+
+import java.util.*;
+
+/**
+ * The LRU replacement policy.
+ * The victim is the buffer that has been unpinned the longest.
+ * Since references to pinned buffers are not reported,
+ * a buffer's recency is the time its pin count last dropped to 0.
+ */
+class LRUPolicy implements ReplacementPolicy {
+   private LinkedHashSet<Buffer> unpinned = new LinkedHashSet<Buffer>();
+
+   public void resize(int numbuffs) {}
+
+   public void onHit(Buffer buff, long cur_time) {
+      unpinned.remove(buff);
+   }
+
+   public void onMiss(Buffer buff, long cur_time) {}
+
+   public void onUnpin(Buffer buff) {
+      unpinned.add(buff);
+   }
+
+   public Buffer chooseVictim(long cur_time) {
+      Iterator<Buffer> iter = unpinned.iterator();
+      if (!iter.hasNext())
+         return null;
+      Buffer buff = iter.next();
+      iter.remove();
+      return buff;
+   }
+
+   public List<Buffer> nextVictims(int n) {
+      List<Buffer> result = new ArrayList<Buffer>(n);
+      for (Buffer buff : unpinned) {
+         if (result.size() >= n)
+            break;
+         result.add(buff);
+      }
+      return result;
+   }
+}
@@ -0,0 +1,49 @@
+package simpledb.buffer;
+
+/**
+ * A clock whose time is set by the program.
+ * Every reference made before the time is changed
+ * gets the same timestamp.
+ * This clock lets a test reproduce a reference string
+ * at exact times without sleeping.
+ */
+public class ManualClock implements ReferenceClock {
+   private volatile long time;
+
+   /**
+    * Creates a clock whose time is 1.
+    */
+   public ManualClock() {
+      this(1);
+   }
+
+   /**
+    * Creates a clock having the specified time.
+    * @param time the initial time, which must be positive
+    */
+   public ManualClock(long time) {
+      this.time = time;
+   }
+
+   public long tick() {
+      return time;
+   }
+
+   /**
+    * Sets the time of the clock.
+    * @param time the new time, which must not be earlier than the current time
+    */
+   public synchronized void set(long time) {
+      if (time < this.time)
+         throw new RuntimeException("clock cannot go back to " + time);
+      this.time = time;
+   }
+
+   /**
+    * Advances the clock by the specified amount.
+    * @param delta the amount of time that passes
+    */
+   public synchronized void advance(long delta) {
+      set(time + delta);
+   }
+}
@@ -0,0 +1,31 @@
+package simpledb.buffer;
+
+/**
+ * A clock that measures elapsed time with {@link System#nanoTime()},
+ * in units of the specified number of nanoseconds.
+ * Unlike {@link System#currentTimeMillis()},
+ * it is not affected by changes to the system time.
+ */
+public class NanoClock implements ReferenceClock {
+   private long origin = System.nanoTime();
+   private long unit;
+
+   /**
+    * Creates a clock that counts in milliseconds.
+    */
+   public NanoClock() {
+      this(1000000);
+   }
+
+   /**
+    * Creates a clock that counts in the specified unit.
+    * @param unit the length of one clock unit, in nanoseconds
+    */
+   public NanoClock(long unit) {
+      this.unit = unit;
+   }
+
+   public long tick() {
+      return (System.nanoTime() - origin) / unit + 1;
+   }
+}
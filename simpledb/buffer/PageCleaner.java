@@ -0,0 +1,52 @@
+package simpledb.buffer;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * The background task that writes dirty buffers
+ * before the replacement policy chooses them as victims,
+ * so that a read miss seldom has to write a page first.
+ * It holds only a weak reference to its buffer manager, and so
+ * stops once the buffer manager is discarded.
+ * @see BufferMgr#startCleaner(double, double, long)
+ */
+class PageCleaner implements Runnable {
+   private WeakReference<BufferMgr> bufferMgr;
+   private long interval;
+   private volatile boolean stopped = false;
+
+   /**
+    * Creates a cleaner for the specified buffer manager.
+    * @param bm the buffer manager
+    * @param interval the time between two rounds, in milliseconds
+    */
+   PageCleaner(BufferMgr bm, long interval) {
+      this.bufferMgr = new WeakReference<BufferMgr>(bm);
+      this.interval = interval;
+   }
+
+   /**
+    * Makes the cleaner stop after its current round.
+    */
+   void stop() {
+      stopped = true;
+   }
+
+   public void run() {
+      try {
+         while (!stopped) {
+            Thread.sleep(interval);
+            BufferMgr bm = bufferMgr.get();
+            if (bm == null)
+               return;
+            try {
+               bm.clean();
+            }
+            catch (RuntimeException e) {
+               // the page will be written when its buffer is replaced
+            }
+         }
+      }
+      catch (InterruptedException e) {}
+   }
+}
@@ -0,0 +1,135 @@
+package simpledb.buffer;
+
+import java.util.concurrent.atomic.*;
+
+/**
+ * The page table of a buffer pool partition, which maps
+ * the key of each resident block (see {@link simpledb.file.Block#key()})
+ * to the buffer holding it.
+ * The table uses open addressing with linear probing over
+ * primitive keys, so a lookup does not allocate.
+ * <p>
+ * Only one thread may modify the table at a time;
+ * the partition's latch serializes the writers.
+ * Lookups are lock-free and may run concurrently with a writer.
+ * A concurrent lookup can therefore miss a resident block
+ * or return a buffer that no longer holds the block;
+ * callers must verify the result, and fall back to a
+ * latched lookup when it does not match.
+ */
+class PageTable {
+   private static final long EMPTY = -1L;
+   private volatile Slots slots = new Slots(16);
+   private int size = 0;
+
+   /**
+    * Returns the buffer holding the block with the specified key,
+    * or null if the block is not resident.
+    * @param key the key of a block
+    * @return the buffer holding the block, or null
+    */
+   Buffer get(long key) {
+      Slots s = slots;
+      int mask = s.mask;
+      for (int i=s.indexOf(key); ; i=(i+1)&mask) {
+         long k = s.keys.get(i);
+         if (k == key)
+            return s.vals.get(i);
+         if (k == EMPTY)
+            return null;
+      }
+   }
+
+   /**
+    * Maps the key of a block to the buffer holding it.
+    * @param key the key of a block
+    * @param buff the buffer holding the block
+    */
+   void put(long key, Buffer buff) {
+      if (2 * (size + 1) > slots.keys.length())
+         resize();
+      Slots s = slots;
+      int mask = s.mask;
+      for (int i=s.indexOf(key); ; i=(i+1)&mask) {
+         long k = s.keys.get(i);
+         if (k == key) {
+            s.vals.set(i, buff);
+            return;
+         }
+         if (k == EMPTY) {
+            s.vals.set(i, buff);
+            s.keys.set(i, key);
+            size++;
+            return;
+         }
+      }
+   }
+
+   /**
+    * Removes the mapping for the block with the specified key.
+    * The entries that follow it in its probe sequence are
+    * shifted back, so that no tombstones are left behind.
+    * @param key the key of a block
+    */
+   void remove(long key) {
+      Slots s = slots;
+      int mask = s.mask;
+      int i = s.indexOf(key);
+      while (s.keys.get(i) != key) {
+         if (s.keys.get(i) == EMPTY)
+            return;
+         i = (i+1) & mask;
+      }
+      size--;
+      int hole = i;
+      for (int j=(i+1)&mask; s.keys.get(j) != EMPTY; j=(j+1)&mask) {
+         long k = s.keys.get(j);
+         int home = s.indexOf(k);
+         // move the entry into the hole unless its home lies cyclically in (hole, j]
+         boolean movable = (hole <= j) ? (home <= hole || home > j)
+                                       : (home <= hole && home > j);
+         if (movable) {
+            s.vals.set(hole, s.vals.get(j));
+            s.keys.set(hole, k);
+            hole = j;
+         }
+      }
+      s.keys.set(hole, EMPTY);
+      s.vals.set(hole, null);
+   }
+
+   private void resize() {
+      Slots old = slots;
+      Slots s = new Slots(old.keys.length() * 2);
+      for (int i=0; i<old.keys.length(); i++) {
+         long k = old.keys.get(i);
+         if (k != EMPTY) {
+            int j = s.indexOf(k);
+            while (s.keys.get(j) != EMPTY)
+               j = (j+1) & s.mask;
+            s.vals.set(j, old.vals.get(i));
+            s.keys.set(j, k);
+         }
+      }
+      slots = s;
+   }
+
+   private static class Slots {
+      final AtomicLongArray keys;
+      final AtomicReferenceArray<Buffer> vals;
+      final int mask;
+
+      Slots(int capacity) {
+         keys = new AtomicLongArray(capacity);
+         vals = new AtomicReferenceArray<Buffer>(capacity);
+         mask = capacity - 1;
+         for (int i=0; i<capacity; i++)
+            keys.set(i, EMPTY);
+      }
+
+      int indexOf(long key) {
+         long h = key * 0x9E3779B97F4A7C15L;
+         return (int)(h >>> 32) & mask;
+      }
+   }
+}
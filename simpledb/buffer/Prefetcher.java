@@ -0,0 +1,174 @@
+package simpledb.buffer;
+
+import simpledb.file.Block;
+import java.lang.ref.WeakReference;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The background task that reads blocks into the buffer pool
+ * before they are pinned.
+ * The prefetcher watches the blocks that miss the pinned buffers,
+ * and once a file is being read sequentially it requests
+ * the next several blocks of the file.
+ * Clients that know which blocks they will read can also
+ * request them explicitly.
+ * Consecutive requested blocks of a file are read together
+ * (see {@link BufferMgr#readRun(String, int, int)}).
+ * The runs are remembered in a fixed table indexed by file number,
+ * so only the files scanned recently have a run;
+ * a file whose entry was taken by another file starts a new run.
+ * Like the other background tasks, it holds only a weak reference
+ * to its buffer manager.
+ * @see BufferMgr#startReadAhead(int)
+ */
+class Prefetcher implements Runnable {
+   private static final int TRIGGER = 2; // consecutive blocks that make a run
+   private static final long POLL_INTERVAL = 1000; // milliseconds
+   private static final int RUN_BITS = 8; // the table holds 2^RUN_BITS runs
+   private WeakReference<BufferMgr> bufferMgr;
+   private int depth;
+   private volatile boolean stopped = false;
+   private BlockingQueue<Block> requests = new LinkedBlockingQueue<Block>();
+   private AtomicReferenceArray<Run> runs = new AtomicReferenceArray<Run>(1 << RUN_BITS);
+
+   /**
+    * Creates a prefetcher for the specified buffer manager.
+    * @param bm the buffer manager
+    * @param depth how many blocks to read ahead of a sequential run
+    */
+   Prefetcher(BufferMgr bm, int depth) {
+      this.bufferMgr = new WeakReference<BufferMgr>(bm);
+      this.depth = depth;
+   }
+
+   /**
+    * Makes the prefetcher stop; pending requests are dropped.
+    */
+   void stop() {
+      stopped = true;
+   }
+
+   /**
+    * Records that the specified block is about to be pinned.
+    * If the block continues a sequential run of its file,
+    * the blocks that follow it are requested.
+    * @param blk the block
+    */
+   void accessed(Block blk) {
+      int fileid = (int) (blk.key() >>> 32);
+      int blknum = blk.number();
+      Run r = run(fileid, true);
+      int from, to;
+      synchronized (r) {
+         if (blknum == r.last + 1)
+            r.length++;
+         else {
+            r.length = 1;
+            r.ahead = blknum;
+         }
+         r.last = blknum;
+         if (r.length < TRIGGER)
+            return;
+         from = Math.max(r.ahead, blknum) + 1;
+         to = blknum + depth;
+         if (from > to)
+            return;
+         r.ahead = to;
+      }
+      request(blk.fileName(), from, to);
+   }
+
+   /**
+    * Requests the blocks of the specified file between
+    * the two block numbers (inclusive).
+    * @param filename the name of the file
+    * @param startblk the first block number
+    * @param endblk the last block number
+    */
+   void request(String filename, int startblk, int endblk) {
+      for (int i=startblk; i<=endblk; i++)
+         requests.offer(new Block(filename, i));
+   }
+
+   public void run() {
+      try {
+         while (!stopped) {
+            Block blk = requests.poll(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+            BufferMgr bm = bufferMgr.get();
+            if (bm == null)
+               return;
+            if (blk == null || stopped)
+               continue;
+            int endblk = blk.number();
+            Block next;
+            while ((next = requests.peek()) != null && next.number() == endblk + 1
+                  && next.fileName().equals(blk.fileName())) {
+               requests.poll();
+               endblk++;
+            }
+            int startblk = Math.max(blk.number(), reached(blk) + 1);
+            if (startblk > endblk)
+               continue;
+            try {
+               bm.readRun(blk.fileName(), startblk, endblk);
+            }
+            catch (RuntimeException e) {
+               // the block will be read when it is pinned
+            }
+         }
+      }
+      catch (InterruptedException e) {}
+   }
+
+   /**
+    * Returns the last block that the most recent run
+    * of the block's file has reached.
+    * A scan that overtakes the prefetcher reads its blocks itself,
+    * and reading them again would only evict other blocks.
+    */
+   private int reached(Block blk) {
+      Run r = run((int) (blk.key() >>> 32), false);
+      if (r == null)
+         return -1;
+      synchronized (r) {
+         return r.last;
+      }
+   }
+
+   /**
+    * Returns the run of the specified file, from the table of runs.
+    * The entry of the file is chosen by hashing its number,
+    * which spreads the permanent files and the temporary tables alike.
+    * @param fileid the number of the file
+    * @param create true if a new run is to replace another file's run
+    * @return the run of the file, or null if it has none and create is false
+    */
+   private Run run(int fileid, boolean create) {
+      int slot = (fileid * 0x9E3779B9) >>> (32 - RUN_BITS);
+      Run r = runs.get(slot);
+      if (r != null && r.fileid == fileid)
+         return r;
+      if (!create)
+         return null;
+      Run fresh = new Run(fileid);
+      if (runs.compareAndSet(slot, r, fresh))
+         return fresh;
+      r = runs.get(slot);
+      return (r != null && r.fileid == fileid) ? r : fresh;
+   }
+
+   /**
+    * The most recent sequential run of a file.
+    */
+   private static class Run {
+      final int fileid;
+      int last = -2;
+      int length = 0;
+      int ahead = -1;  // the last block requested for the run
+
+      Run(int fileid) {
+         this.fileid = fileid;
+      }
+   }
+}
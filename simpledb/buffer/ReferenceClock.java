@@ -0,0 +1,21 @@
+package simpledb.buffer;
+
+/**
+ * The source of the timestamps that a buffer manager gives
+ * to block references.
+ * The replacement policies compare these timestamps to order
+ * the blocks, and the LRU-K correlated reference period and
+ * retained information period are expressed in the clock's units.
+ * <p>
+ * Timestamps must be positive and must never decrease.
+ * @see CounterClock
+ * @see NanoClock
+ * @see ManualClock
+ */
+public interface ReferenceClock {
+   /**
+    * Returns the timestamp of a new block reference.
+    * @return the current time, in the clock's units
+    */
+   public long tick();
+}
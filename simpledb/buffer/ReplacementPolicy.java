@@ -0,0 +1,70 @@
+package simpledb.buffer;
+
+import java.util.List;
+
+/**
+ * The policy that decides which buffer of a buffer pool
+ * partition to replace.
+ * A basic buffer manager tells its policy about every
+ * buffer that is assigned a block, about references to
+ * resident blocks, and about buffers that become unpinned;
+ * the policy in turn chooses the victim when a block must be read
+ * and there is no empty buffer.
+ * <p>
+ * Each partition has its own policy object, and calls it while
+ * holding the partition's lock.
+ * A reference to a block whose buffer is already pinned
+ * is not reported, because such references do not take the lock.
+ */
+public interface ReplacementPolicy {
+   /**
+    * Tells the policy how many buffers the partition currently has.
+    * The number changes when buffers move between partitions.
+    * @param numbuffs the number of buffers in the partition
+    */
+   public void resize(int numbuffs);
+
+   /**
+    * Records a reference to a resident block whose buffer
+    * is unpinned; the buffer is about to be pinned.
+    * @param buff the buffer holding the referenced block
+    * @param cur_time the time of the reference
+    */
+   public void onHit(Buffer buff, long cur_time);
+
+   /**
+    * Records that the specified buffer has just been assigned
+    * the block returned by {@link Buffer#block()},
+    * because of a reference to that block.
+    * The buffer is about to be pinned.
+    * @param buff the buffer
+    * @param cur_time the time of the reference
+    */
+   public void onMiss(Buffer buff, long cur_time);
+
+   /**
+    * Records that the pin count of the specified buffer
+    * has dropped to 0, so that it can be replaced.
+    * @param buff the buffer
+    */
+   public void onUnpin(Buffer buff);
+
+   /**
+    * Chooses an unpinned buffer to be replaced, and
+    * forgets the block it holds.
+    * Returns null if no buffer can be replaced.
+    * @param cur_time the current time
+    * @return the victim buffer, or null
+    */
+   public Buffer chooseVictim(long cur_time);
+
+   /**
+    * Returns up to n unpinned buffers, in the order in which
+    * they would be chosen as victims if no other reference occurred,
+    * without changing the state of the policy.
+    * The page cleaner writes these buffers before they are replaced.
+    * @param n the maximum number of buffers to return
+    * @return the next victims
+    */
+   public List<Buffer> nextVictims(int n);
+}
@@ -0,0 +1,178 @@
+package simpledb.buffer;
+
+import simpledb.file.Block;
+import java.io.*;
+import java.util.*;
+
+/**
+ * Replays a {@link BufferTrace} against a buffer pool of any size
+ * and any replacement policy, without doing any I/O,
+ * and reports how well the policy would have done.
+ * <p>
+ * The simulated pool is a single partition.
+ * The timestamps of the trace are passed to the policy as the
+ * current time, so the LRU-K correlated reference period and
+ * retained information period are measured in trace records.
+ * <p>
+ * Usage:
+ * <pre>
+ * java simpledb.buffer.TraceSimulator trace poolsize [policy [k [refperiod [retainedperiod]]]]
+ * </pre>
+ */
+public class TraceSimulator {
+   private Map<Block,Buffer> pageTable = new HashMap<Block,Buffer>();
+   private Deque<Buffer> emptyBuffs = new ArrayDeque<Buffer>();
+   private Map<Buffer,Integer> pins = new HashMap<Buffer,Integer>();
+   private Map<Buffer,Boolean> dirty = new HashMap<Buffer,Boolean>();
+   private Map<Block,Integer> stalled = new HashMap<Block,Integer>();
+   private ReplacementPolicy policy;
+
+   private long refs, hits, misses, newblocks, evictions, writebacks, stalls;
+
+   /**
+    * Creates a simulator for a pool of the specified size,
+    * that uses the specified policy.
+    * @param poolsize the number of buffers in the pool
+    * @param policy the replacement policy
+    */
+   public TraceSimulator(int poolsize, ReplacementPolicy policy) {
+      this.policy = policy;
+      for (int i=0; i<poolsize; i++)
+         emptyBuffs.add(new Buffer());
+      policy.resize(poolsize);
+   }
+
+   /**
+    * Replays the requests recorded in the specified trace file.
+    * @param filename the name of the trace file
+    */
+   public void replay(String filename) throws IOException {
+      DataInputStream in = new DataInputStream(
+            new BufferedInputStream(new FileInputStream(filename), 1 << 16));
+      try {
+         if (in.readInt() != BufferTrace.MAGIC)
+            throw new IOException(filename + " is not a buffer trace");
+         Map<Integer,String> files = new HashMap<Integer,String>();
+         while (true) {
+            int type = in.read();
+            if (type < 0)
+               break;
+            if (type == BufferTrace.FILE) {
+               int id = in.readInt();
+               files.put(id, in.readUTF());
+               continue;
+            }
+            long time = in.readLong();
+            Block blk = new Block(files.get(in.readInt()), in.readInt());
+            if (type == BufferTrace.PIN)
+               pin(blk, time, false);
+            else if (type == BufferTrace.PIN_NEW)
+               pin(blk, time, true);
+            else if (type == BufferTrace.UNPIN)
+               unpin(blk, in.readByte() != 0);
+            else
+               throw new IOException("bad record type " + type + " in " + filename);
+         }
+      }
+      catch (EOFException e) {
+         // a trace that was not closed ends in a partial record
+      }
+      finally {
+         in.close();
+      }
+   }
+
+   /**
+    * Prints the statistics of the replay.
+    * @param out the stream to print on
+    */
+   public void report(PrintStream out) {
+      out.println("references:  " + refs);
+      out.println("hits:        " + hits);
+      out.println("misses:      " + misses);
+      out.println("new blocks:  " + newblocks);
+      out.printf ("hit ratio:   %.4f%n", refs == 0 ? 0.0 : (double) hits / refs);
+      out.println("evictions:   " + evictions);
+      out.println("write-backs: " + writebacks);
+      out.println("stalls:      " + stalls);
+   }
+
+   private void pin(Block blk, long time, boolean isNew) {
+      refs++;
+      Buffer buff = pageTable.get(blk);
+      if (buff != null) {
+         hits++;
+         if (pins.get(buff) == 0)
+            policy.onHit(buff, time);
+      }
+      else {
+         buff = emptyBuffs.poll();
+         if (buff == null) {
+            buff = policy.chooseVictim(time);
+            if (buff == null) {
+               // the live pool would have waited; ignore the matching unpin
+               stalls++;
+               Integer n = stalled.get(blk);
+               stalled.put(blk, n == null ? 1 : n+1);
+               return;
+            }
+            evictions++;
+            if (dirty.get(buff))
+               writebacks++;
+            pageTable.remove(buff.block());
+         }
+         if (isNew)
+            newblocks++;
+         else
+            misses++;
+         buff.assignForReplay(blk);
+         pageTable.put(blk, buff);
+         dirty.put(buff, false);
+         pins.put(buff, 0);
+         policy.onMiss(buff, time);
+      }
+      pins.put(buff, pins.get(buff) + 1);
+   }
+
+   private void unpin(Block blk, boolean modified) {
+      Integer n = stalled.get(blk);
+      if (n != null) {
+         if (n == 1)
+            stalled.remove(blk);
+         else
+            stalled.put(blk, n-1);
+         return;
+      }
+      Buffer buff = pageTable.get(blk);
+      if (buff == null || pins.get(buff) == 0)
+         return;  // the trace began while the block was pinned
+      if (modified)
+         dirty.put(buff, true);
+      int count = pins.get(buff) - 1;
+      pins.put(buff, count);
+      if (count == 0)
+         policy.onUnpin(buff);
+   }
+
+   /**
+    * Replays a trace file and prints the statistics.
+    * @param args the trace file, the pool size, and optionally
+    * the policy name, K, the correlated reference period and
+    * the retained information period
+    */
+   public static void main(String[] args) throws IOException {
+      if (args.length < 2) {
+         System.err.println("usage: TraceSimulator trace poolsize [policy [k [refperiod [retainedperiod]]]]");
+         System.exit(1);
+      }
+      int poolsize = Integer.parseInt(args[1]);
+      String name = (args.length > 2) ? args[2] : "lru-k";
+      int k = (args.length > 3) ? Integer.parseInt(args[3]) : 2;
+      long refPeriod = (args.length > 4) ? Long.parseLong(args[4]) : 0;
+      long retainedPeriod = (args.length > 5) ? Long.parseLong(args[5]) : 100L * poolsize;
+      ReplacementPolicy policy = BufferMgr.newPolicy(name, k, refPeriod, retainedPeriod);
+      TraceSimulator sim = new TraceSimulator(poolsize, policy);
+      sim.replay(args[0]);
+      sim.report(System.out);
+   }
+}
@@ -0,0 +1,102 @@
+package simpledb.buffer;
+
+import java.util.*;
+
+/**
+ * The 2Q replacement policy (Johnson and Shasha).
+ * A block read for the first time enters the FIFO queue A1in.
+ * When a block is replaced from A1in, its key is remembered
+ * in the ghost queue A1out; if the block is read again while
+ * it is remembered there, it enters the LRU queue Am.
+ * Blocks that are referenced only once, as in a scan,
+ * therefore never displace the blocks in Am.
+ * A1in is kept to a quarter of the buffers,
+ * and A1out remembers half as many blocks as there are buffers.
+ */
+class TwoQPolicy implements ReplacementPolicy {
+   private int kin = 1, kout = 1;
+   private LinkedHashSet<Buffer> a1in = new LinkedHashSet<Buffer>();
+   private LinkedHashSet<Buffer> am = new LinkedHashSet<Buffer>();
+   private LinkedHashSet<Long> a1out = new LinkedHashSet<Long>();
+
+   public void resize(int numbuffs) {
+      kin = Math.max(1, numbuffs / 4);
+      kout = Math.max(1, numbuffs / 2);
+   }
+
+   public void onHit(Buffer buff, long cur_time) {
+      if (am.remove(buff))
+         am.add(buff);
+   }
+
+   public void onMiss(Buffer buff, long cur_time) {
+      if (a1out.remove(buff.block().key()))
+         am.add(buff);
+      else
+         a1in.add(buff);
+   }
+
+   public void onUnpin(Buffer buff) {
+      if (am.remove(buff))
+         am.add(buff);
+   }
+
+   public Buffer chooseVictim(long cur_time) {
+      Buffer buff = null;
+      if (a1in.size() > kin)
+         buff = removeUnpinned(a1in);
+      if (buff == null)
+         buff = removeUnpinned(am);
+      else
+         remember(buff);
+      if (buff == null) {
+         buff = removeUnpinned(a1in);
+         if (buff != null)
+            remember(buff);
+      }
+      return buff;
+   }
+
+   public List<Buffer> nextVictims(int n) {
+      List<Buffer> result = new ArrayList<Buffer>(n);
+      if (a1in.size() > kin) {
+         addUnpinned(a1in, result, n);
+         addUnpinned(am, result, n);
+      }
+      else {
+         addUnpinned(am, result, n);
+         addUnpinned(a1in, result, n);
+      }
+      return result;
+   }
+
+   private void addUnpinned(Collection<Buffer> queue, List<Buffer> result, int n) {
+      for (Buffer buff : queue) {
+         if (result.size() >= n)
+            return;
+         if (!buff.isPinned())
+            result.add(buff);
+      }
+   }
+
+   private void remember(Buffer buff) {
+      a1out.add(buff.block().key());
+      Iterator<Long> iter = a1out.iterator();
+      while (a1out.size() > kout) {
+         iter.next();
+         iter.remove();
+      }
+   }
+
+   private Buffer removeUnpinned(LinkedHashSet<Buffer> queue) {
+      Iterator<Buffer> iter = queue.iterator();
+      while (iter.hasNext()) {
+         Buffer buff = iter.next();
+         if (!buff.isPinned()) {
+            iter.remove();
+            return buff;
+         }
+      }
+      return null;
+   }
+}
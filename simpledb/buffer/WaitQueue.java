@@ -0,0 +1,92 @@
+package simpledb.buffer;
+
+import java.util.*;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * The threads waiting for a buffer frame, in order of arrival.
+ * A frame that becomes free is handed directly to the thread
+ * that has waited longest, and only that thread is woken.
+ * Each thread waits until its own deadline.
+ * @see BufferMgr
+ */
+class WaitQueue {
+   private Deque<Waiter> waiters = new ArrayDeque<Waiter>();
+   private volatile int size = 0;
+
+   /**
+    * Returns true if no thread is waiting.
+    * @return true if the queue is empty
+    */
+   boolean isEmpty() {
+      return size == 0;
+   }
+
+   /**
+    * Adds the calling thread to the end of the queue.
+    * @param deadline the time at which the thread gives up, in the units of {@link System#nanoTime()}
+    * @return the waiter to pass to {@link #await(Waiter)}
+    */
+   synchronized Waiter enqueue(long deadline) {
+      Waiter w = new Waiter(Thread.currentThread(), deadline);
+      waiters.add(w);
+      size++;
+      return w;
+   }
+
+   /**
+    * Gives the specified frame to the oldest waiter, and wakes it.
+    * @param frame a frame that belongs to no partition
+    * @return false if no thread is waiting, in which case the caller keeps the frame
+    */
+   synchronized boolean handOff(Buffer frame) {
+      Waiter w = waiters.poll();
+      if (w == null)
+         return false;
+      size--;
+      w.frame = frame;
+      LockSupport.unpark(w.thread);
+      return true;
+   }
+
+   /**
+    * Waits until a frame is handed to the specified waiter.
+    * Returns null if the waiter's deadline passes,
+    * or if the thread is interrupted, before it is given a frame;
+    * the waiter is then removed from the queue.
+    * @param w the waiter of the calling thread
+    * @return the frame handed to the waiter, or null
+    */
+   Buffer await(Waiter w) {
+      while (true) {
+         Buffer frame = w.frame;
+         if (frame != null)
+            return frame;
+         long remaining = w.deadline - System.nanoTime();
+         if (remaining <= 0 || Thread.interrupted()) {
+            synchronized (this) {
+               if (w.frame != null)
+                  return w.frame;
+               waiters.remove(w);
+               size--;
+               return null;
+            }
+         }
+         LockSupport.parkNanos(this, remaining);
+      }
+   }
+
+   /**
+    * A thread waiting for a frame.
+    */
+   static class Waiter {
+      private Thread thread;
+      private long deadline;
+      private volatile Buffer frame = null;
+
+      private Waiter(Thread thread, long deadline) {
+         this.thread = thread;
+         this.deadline = deadline;
+      }
+   }
+}
@@ -1,5 +1,8 @@
 package simpledb.file;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * A reference to a disk block.
  * A Block object consists of a filename and a block number.
@@ -8,8 +11,18 @@ package simpledb.file;
  * @author Edward Sciore
  */
 public class Block {
+   /**
+    * The first number assigned to a temporary file.
+    * The temporary table "tempN" has the number TEMP_FILE_IDS + N,
+    * which is computed from its name.
+    */
+   public static final int TEMP_FILE_IDS = 1 << 30;
+
+   private static ConcurrentHashMap<String,Integer> fileIds = new ConcurrentHashMap<String,Integer>();
+   private static AtomicInteger nextFileId = new AtomicInteger();
    private String filename;
    private int blknum;
+   private long key = -1;
    
    /**
     * Constructs a block reference 
@@ -38,6 +51,68 @@ public class Block {
       return blknum;
    }
    
+   /**
+    * Returns a compact key that identifies the block.
+    * The key combines a number assigned to the block's file
+    * with the block number; two blocks have the same key
+    * if and only if they are equal.
+    * A file keeps its number for the life of the server,
+    * except that the number of a temporary table is computed
+    * from its name, so the many temporary tables of a long-running
+    * server are not remembered.
+    * The key is computed once per Block object.
+    * @return the key of the block
+    */
+   public long key() {
+      if (key < 0) {
+         int id = tempFileId(filename);
+         if (id < 0) {
+            Integer n = fileIds.get(filename);
+            if (n == null) {
+               fileIds.putIfAbsent(filename, nextFileId.getAndIncrement());
+               n = fileIds.get(filename);
+            }
+            id = n;
+         }
+         key = ((long) id << 32) | (blknum & 0xFFFFFFFFL);
+      }
+      return key;
+   }
+   
+   /**
+    * Returns true if the specified file number,
+    * taken from the high half of a block's key,
+    * is that of a temporary table.
+    * @param fileid the number of a file
+    * @return true if the file is a temporary table
+    */
+   public static boolean isTempFile(int fileid) {
+      return fileid >= TEMP_FILE_IDS;
+   }
+   
+   /**
+    * Returns the number of the specified temporary table,
+    * or -1 if the name is not of the form "tempN".
+    * @param filename the name of a file
+    * @return the number of the file, or -1
+    */
+   private static int tempFileId(String filename) {
+      int len = filename.length();
+      if (len <= 4 || !filename.startsWith("temp")
+            || (filename.charAt(4) == '0' && len > 5))
+         return -1;
+      long n = 0;
+      for (int i=4; i<len; i++) {
+         char c = filename.charAt(i);
+         if (c < '0' || c > '9')
+            return -1;
+         n = n * 10 + (c - '0');
+         if (n >= TEMP_FILE_IDS)
+            return -1;
+      }
+      return TEMP_FILE_IDS + (int) n;
+   }
+   
    public boolean equals(Object obj) {
       Block blk = (Block) obj;
       return filename.equals(blk.filename) && blknum == blk.blknum;
@@ -48,6 +123,6 @@ public class Block {
    }
    
    public int hashCode() {
-      return toString().hashCode();
+      return filename.hashCode() * 31 + blknum;
    }
 }
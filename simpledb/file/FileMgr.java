@@ -1,10 +1,11 @@
 package simpledb.file;
 
-import static simpledb.file.Page.BLOCK_SIZE;
+import static simpledb.file.Page.*;
 import java.io.*;
 import java.nio.ByteBuffer;
 import java.nio.channels.FileChannel;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * The SimpleDB file manager.
@@ -15,16 +16,84 @@ import java.util.*;
  * and appending the contents of a byte buffer to the end of a file.
  * These methods are called exclusively by the class {@link simpledb.file.Page Page},
  * and are thus package-private.
- * The class also contains two public methods:
+ * The class also contains these public methods:
  * Method {@link #isNew() isNew} is called during system initialization by {@link simpledb.server.SimpleDB#init}.
  * Method {@link #size(String) size} is called by the log manager and transaction manager to
  * determine the end of the file.
+ * Methods {@link #force(String) force} and {@link #forceAll() forceAll}
+ * are called by the log manager and recovery manager to make
+ * written blocks durable.
+ * Method {@link #setMapped(String, boolean) setMapped} is called
+ * during system initialization to choose the files that are read
+ * through a memory mapping.
+ * <p>
+ * The block size of a database is chosen when the database is created,
+ * and is recorded in the database's header file.
+ * A database without a header file has blocks of
+ * {@link Page#DEFAULT_BLOCK_SIZE} bytes.
+ * <p>
+ * Reads and writes use positional I/O on a shared file channel,
+ * and are not synchronized: any number of threads can read and write
+ * blocks at the same time, of the same file or of different files.
+ * Only appends to the same file are serialized, so that each
+ * append gets its own new block.
+ * Consecutive blocks can also be read or written together,
+ * with one vectored (scatter/gather) call on the file channel;
+ * such calls use the channel's position, and so are serialized per file.
+ * <p>
+ * Files are not opened in synchronous mode, so a write
+ * may reach the operating system's cache and not the disk.
+ * A written block is durable only once its file is forced.
+ * Temporary files are never forced.
+ * <p>
+ * Files grow in extents of several blocks, which are
+ * preallocated (written as zeros) when an append reaches the end
+ * of the file; so a file is longer than its blocks.
+ * The number of blocks in each file (its high-water mark) is kept
+ * in memory, and saved in the file {@link #SIZES_FILE}
+ * whenever the file is forced or grows by an extent.
+ * A file that has no saved high-water mark, such as a file of a
+ * database created before extents, has as many blocks as fit in it.
+ * <p>
+ * Selected files can be read through a memory mapping
+ * (see {@link MappedFile}), which avoids a system call for each block read.
+ * Writes to those files still go through the file channel.
+ * The mapping suits large files that are mostly read,
+ * such as lookup tables and their indexes.
  * @author Edward Sciore
  */
 public class FileMgr {
+   /**
+    * The name of the header file of a database.
+    */
+   public static final String HEADER_FILE = "simpledb.hdr";
+
+   /**
+    * The name of the file that holds the saved high-water marks
+    * of a database's files.
+    */
+   public static final String SIZES_FILE = "simpledb.hwm";
+
+   /**
+    * The default number of blocks in an extent.
+    */
+   public static final int DEFAULT_EXTENT_SIZE = 64;
+   private static final int HEADER_MAGIC = 0x53444248; // "SDBH"
+   private static final int HEADER_VERSION = 1;
+
    private File dbDirectory;
    private boolean isNew;
-   private Map<String,FileChannel> openFiles = new HashMap<String,FileChannel>();
+   private ConcurrentHashMap<String,FileChannel> openFiles = new ConcurrentHashMap<String,FileChannel>();
+   private ConcurrentHashMap<String,Object> appendLocks = new ConcurrentHashMap<String,Object>();
+   private ConcurrentHashMap<String,Object> forceLocks = new ConcurrentHashMap<String,Object>();
+   private ConcurrentHashMap<String,Object> vectorLocks = new ConcurrentHashMap<String,Object>();
+   private Set<String> unforced = Collections.newSetFromMap(new ConcurrentHashMap<String,Boolean>());
+   private Set<String> mappedNames = Collections.newSetFromMap(new ConcurrentHashMap<String,Boolean>());
+   private ConcurrentHashMap<String,MappedFile> mappedFiles = new ConcurrentHashMap<String,MappedFile>();
+   private ConcurrentHashMap<String,Integer> sizes = new ConcurrentHashMap<String,Integer>();
+   private Map<String,Integer> savedSizes = new HashMap<String,Integer>();
+   private volatile int extentSize = DEFAULT_EXTENT_SIZE;
+   private ByteBuffer zeros = null;
 
    /**
     * Creates a file manager for the specified database.
@@ -33,21 +102,46 @@ public class FileMgr {
     * If the folder does not exist, then a folder containing
     * an empty database is created automatically.
     * Files for all temporary tables (i.e. tables beginning with "temp") are deleted.
+    * A new database has blocks of the default size.
     * @param dbname the name of the directory that holds the database
     */
    public FileMgr(String dbname) {
+      this(dbname, DEFAULT_BLOCK_SIZE);
+   }
+
+   /**
+    * Creates a file manager for the specified database,
+    * which has blocks of the specified size if it is new.
+    * The block size of an existing database is read from its
+    * header file, and the argument is ignored.
+    * Either way, {@link Page#BLOCK_SIZE} is set to the
+    * block size of the database.
+    * The block size of a new database must be the default size,
+    * or a power of two from 4K to 64K.
+    * @param dbname the name of the directory that holds the database
+    * @param blocksize the number of bytes in a block of a new database
+    */
+   public FileMgr(String dbname, int blocksize) {
       String homedir = System.getProperty("user.home");
       dbDirectory = new File(homedir, dbname);
       isNew = !dbDirectory.exists();
 
       // create the directory if the database is new
-      if (isNew && !dbDirectory.mkdir())
-         throw new RuntimeException("cannot create " + dbname);
+      if (isNew) {
+         checkBlockSize(blocksize);
+         if (!dbDirectory.mkdir())
+            throw new RuntimeException("cannot create " + dbname);
+         writeHeader(blocksize);
+      }
+      else
+         blocksize = readHeader();
+      BLOCK_SIZE = blocksize;
 
       // remove any leftover temporary tables
       for (String filename : dbDirectory.list())
-         if (filename.startsWith("temp"))
+         if (isTemp(filename))
          new File(dbDirectory, filename).delete();
+      readSizes();
    }
 
    /**
@@ -55,11 +149,14 @@ public class FileMgr {
     * @param blk a reference to a disk block
     * @param bb  the bytebuffer
     */
-   synchronized void read(Block blk, ByteBuffer bb) {
+   void read(Block blk, ByteBuffer bb) {
       try {
          bb.clear();
+         MappedFile mf = mappedFile(blk.fileName());
+         if (mf != null && mf.read(blk.number(), bb))
+            return;
          FileChannel fc = getFile(blk.fileName());
-         fc.read(bb, blk.number() * BLOCK_SIZE);
+         fc.read(bb, (long) blk.number() * BLOCK_SIZE);
       }
       catch (IOException e) {
          throw new RuntimeException("cannot read block " + blk);
@@ -71,46 +168,222 @@ public class FileMgr {
     * @param blk a reference to a disk block
     * @param bb  the bytebuffer
     */
-   synchronized void write(Block blk, ByteBuffer bb) {
+   void write(Block blk, ByteBuffer bb) {
       try {
          bb.rewind();
          FileChannel fc = getFile(blk.fileName());
-         fc.write(bb, blk.number() * BLOCK_SIZE);
+         long pos = (long) blk.number() * BLOCK_SIZE;
+         while (bb.hasRemaining())
+            pos += fc.write(bb, pos);
+         if (!isTemp(blk.fileName()))
+            unforced.add(blk.fileName());
       }
       catch (IOException e) {
          throw new RuntimeException("cannot write block" + blk);
       }
    }
 
+   /**
+    * Reads the contents of consecutive disk blocks,
+    * starting with the specified block, into the bytebuffers,
+    * one block per bytebuffer, with a single scatter read.
+    * The bytebuffers of blocks beyond the end of the file
+    * are not filled.
+    * The positions of the bytebuffers are not used or changed.
+    * @param blk a reference to the first disk block
+    * @param bbs the bytebuffers
+    */
+   void read(Block blk, ByteBuffer[] bbs) {
+      String filename = blk.fileName();
+      try {
+         if (mappedFile(filename) != null) {
+            for (int i=0; i<bbs.length; i++)
+               read(new Block(filename, blk.number() + i), bbs[i]);
+            return;
+         }
+         ByteBuffer[] views = views(bbs);
+         FileChannel fc = getFile(filename);
+         synchronized (lock(vectorLocks, filename)) {
+            fc.position((long) blk.number() * BLOCK_SIZE);
+            while (views[views.length-1].hasRemaining())
+               if (fc.read(views) < 0)
+                  break;
+         }
+      }
+      catch (IOException e) {
+         throw new RuntimeException("cannot read " + bbs.length + " blocks from " + blk);
+      }
+   }
+
+   /**
+    * Writes the contents of the bytebuffers into consecutive
+    * disk blocks, starting with the specified block,
+    * one block per bytebuffer, with a single gather write.
+    * The positions of the bytebuffers are not used or changed.
+    * @param blk a reference to the first disk block
+    * @param bbs the bytebuffers
+    */
+   void write(Block blk, ByteBuffer[] bbs) {
+      String filename = blk.fileName();
+      try {
+         ByteBuffer[] views = views(bbs);
+         FileChannel fc = getFile(filename);
+         synchronized (lock(vectorLocks, filename)) {
+            fc.position((long) blk.number() * BLOCK_SIZE);
+            while (views[views.length-1].hasRemaining())
+               fc.write(views);
+         }
+         if (!isTemp(filename))
+            unforced.add(filename);
+      }
+      catch (IOException e) {
+         throw new RuntimeException("cannot write " + bbs.length + " blocks to " + blk);
+      }
+   }
+
    /**
     * Appends the contents of a bytebuffer to the end
     * of the specified file.
+    * Appends to the same file are serialized.
     * @param filename the name of the file
     * @param bb  the bytebuffer
     * @return a reference to the newly-created block.
     */
-   synchronized Block append(String filename, ByteBuffer bb) {
-      int newblknum = size(filename);
-      Block blk = new Block(filename, newblknum);
-      write(blk, bb);
-      return blk;
+   Block append(String filename, ByteBuffer bb) {
+      synchronized (lock(appendLocks, filename)) {
+         int newblknum = size(filename);
+         Block blk = new Block(filename, newblknum);
+         try {
+            extend(filename, newblknum);
+         }
+         catch (IOException e) {
+            throw new RuntimeException("cannot extend " + filename);
+         }
+         write(blk, bb);
+         sizes.put(filename, newblknum + 1);
+         return blk;
+      }
    }
 
    /**
-    * Returns the number of blocks in the specified file.
+    * Forces the blocks written to the specified file to disk.
+    * When the method returns, every write to the file that completed
+    * before the call is durable, and so is the file's high-water mark.
+    * The method does nothing if the file has not been written
+    * since it was last forced, or if it is a temporary file.
+    * @param filename the name of the file
+    */
+   public void force(String filename) {
+      synchronized (lock(forceLocks, filename)) {
+         if (!unforced.remove(filename))
+            return;
+         try {
+            // blocks appended during the force are not yet durable
+            int size = size(filename);
+            getFile(filename).force(false);
+            saveSize(filename, size);
+         }
+         catch (IOException e) {
+            unforced.add(filename);
+            throw new RuntimeException("cannot force " + filename);
+         }
+      }
+   }
+
+   /**
+    * Forces the blocks written to every file to disk,
+    * except for temporary files.
+    */
+   public void forceAll() {
+      for (String filename : new ArrayList<String>(unforced))
+         force(filename);
+   }
+
+   /**
+    * Chooses whether blocks of the specified files are read
+    * through a memory mapping.
+    * A name ending in "*" selects every file whose name
+    * starts with the rest of it; for example, the files of
+    * a table are selected by "tblname.tbl",
+    * and the files of an index by "idxname*".
+    * Temporary files are never mapped.
+    * Turning the mapping off drops the current mappings of the files.
+    * @param name the name of a file, or a prefix followed by "*"
+    * @param mapped true if the files are to be read through a mapping
+    */
+   public void setMapped(String name, boolean mapped) {
+      if (mapped)
+         mappedNames.add(name);
+      else {
+         mappedNames.remove(name);
+         for (String filename : mappedFiles.keySet())
+            if (!isMapped(filename))
+               mappedFiles.remove(filename);
+      }
+   }
+
+   /**
+    * Returns true if blocks of the specified file are read
+    * through a memory mapping.
+    * @param filename the name of the file
+    * @return true if the file is mapped
+    */
+   public boolean isMapped(String filename) {
+      if (mappedNames.isEmpty() || isTemp(filename))
+         return false;
+      if (mappedNames.contains(filename))
+         return true;
+      for (String name : mappedNames)
+         if (name.endsWith("*") && filename.startsWith(name.substring(0, name.length()-1)))
+            return true;
+      return false;
+   }
+
+   /**
+    * Returns the number of blocks in the specified file,
+    * which is the file's high-water mark.
     * @param filename the name of the file
     * @return the number of blocks in the file
     */
-   public synchronized int size(String filename) {
+   public int size(String filename) {
+      Integer size = sizes.get(filename);
+      if (size != null)
+         return size;
       try {
-         FileChannel fc = getFile(filename);
-         return (int)(fc.size() / BLOCK_SIZE);
+         synchronized (this) {
+            size = savedSizes.get(filename);
+         }
+         if (size == null) {
+            FileChannel fc = getFile(filename);
+            size = (int)(fc.size() / BLOCK_SIZE);
+         }
+         Integer prev = sizes.putIfAbsent(filename, size);
+         return (prev == null) ? size : prev;
       }
       catch (IOException e) {
          throw new RuntimeException("cannot access " + filename);
       }
    }
 
+   /**
+    * Sets the number of blocks by which files grow,
+    * for the extents allocated from now on.
+    * @param blocks the number of blocks in an extent
+    */
+   public void setExtentSize(int blocks) {
+      if (blocks < 1)
+         throw new RuntimeException("invalid extent size " + blocks);
+      extentSize = blocks;
+   }
+
+   /**
+    * Returns the number of bytes in a block of the database.
+    * @return the block size
+    */
+   public int blockSize() {
+      return BLOCK_SIZE;
+   }
+
    /**
     * Returns a boolean indicating whether the file manager
     * had to create a new database directory.
@@ -120,11 +393,214 @@ public class FileMgr {
       return isNew;
    }
 
+   /**
+    * Returns the mapping of the specified file,
+    * creating it if necessary,
+    * or null if the file is not read through a mapping.
+    */
+   private MappedFile mappedFile(String filename) throws IOException {
+      MappedFile mf = mappedFiles.get(filename);
+      if (mf == null && isMapped(filename)) {
+         mappedFiles.putIfAbsent(filename, new MappedFile(filename, getFile(filename)));
+         mf = mappedFiles.get(filename);
+      }
+      return mf;
+   }
+
+   /**
+    * Returns views of the whole of each bytebuffer,
+    * whose positions are independent of the bytebuffers'.
+    * The pages that own the bytebuffers use their positions
+    * for single-block reads and writes, under the pages' locks,
+    * which a vectored call does not hold.
+    */
+   private static ByteBuffer[] views(ByteBuffer[] bbs) {
+      ByteBuffer[] views = new ByteBuffer[bbs.length];
+      for (int i=0; i<bbs.length; i++) {
+         views[i] = bbs[i].duplicate();
+         views[i].clear();
+      }
+      return views;
+   }
+
+   /**
+    * Makes the specified file long enough to hold the block
+    * with the specified number, by preallocating an extent
+    * after the end of the file if necessary.
+    * The extent is forced, and the file's high-water mark saved,
+    * so that a file that is longer than its blocks always has
+    * a saved high-water mark.
+    * Extents of temporary files are neither forced nor saved.
+    * The file's append lock must be held.
+    */
+   private void extend(String filename, int blknum) throws IOException {
+      FileChannel fc = getFile(filename);
+      long end = fc.size();
+      if (end >= (long) (blknum + 1) * BLOCK_SIZE)
+         return;
+      int extent = extentSize;
+      long newend = ((long) blknum / extent + 1) * extent * BLOCK_SIZE;
+      ByteBuffer zero = zeros(extent * BLOCK_SIZE);
+      for (long pos = end; pos < newend; ) {
+         zero.clear();
+         zero.limit((int) Math.min(zero.capacity(), newend - pos));
+         pos += fc.write(zero, pos);
+      }
+      if (!isTemp(filename)) {
+         fc.force(false);
+         saveSize(filename, blknum);
+      }
+   }
+
+   /**
+    * Returns a view of a buffer of at least the specified
+    * number of zeros.
+    */
+   private synchronized ByteBuffer zeros(int n) {
+      if (zeros == null || zeros.capacity() < n)
+         zeros = ByteBuffer.allocateDirect(n);
+      return zeros.duplicate();
+   }
+
+   /**
+    * Saves the specified high-water mark of the file,
+    * unless a larger one is already saved.
+    * The high-water marks are written to a new file that replaces
+    * {@link #SIZES_FILE}, so that a crash leaves either
+    * the old marks or the new ones.
+    */
+   private synchronized void saveSize(String filename, int size) {
+      Integer saved = savedSizes.get(filename);
+      if (saved != null && saved >= size)
+         return;
+      savedSizes.put(filename, size);
+      File tmp = new File(dbDirectory, SIZES_FILE + ".tmp");
+      try {
+         FileOutputStream out = new FileOutputStream(tmp);
+         try {
+            DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+            data.writeInt(savedSizes.size());
+            for (Map.Entry<String,Integer> e : savedSizes.entrySet()) {
+               data.writeUTF(e.getKey());
+               data.writeInt(e.getValue());
+            }
+            data.flush();
+            out.getFD().sync();
+         }
+         finally {
+            out.close();
+         }
+         if (!tmp.renameTo(new File(dbDirectory, SIZES_FILE)))
+            throw new IOException();
+      }
+      catch (IOException e) {
+         throw new RuntimeException("cannot write " + SIZES_FILE);
+      }
+   }
+
+   /**
+    * Reads the saved high-water marks of the database's files.
+    */
+   private void readSizes() {
+      File sizesFile = new File(dbDirectory, SIZES_FILE);
+      if (!sizesFile.exists())
+         return;
+      try {
+         DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(sizesFile)));
+         try {
+            int n = in.readInt();
+            for (int i=0; i<n; i++) {
+               String filename = in.readUTF();
+               savedSizes.put(filename, in.readInt());
+            }
+         }
+         finally {
+            in.close();
+         }
+      }
+      catch (IOException e) {
+         throw new RuntimeException("cannot read " + SIZES_FILE);
+      }
+   }
+
+   private static boolean isTemp(String filename) {
+      return filename.startsWith("temp");
+   }
+
+   /**
+    * Returns the lock object for the specified file
+    * in the specified map, creating it if necessary.
+    */
+   private static Object lock(ConcurrentHashMap<String,Object> locks, String filename) {
+      Object lock = locks.get(filename);
+      if (lock == null) {
+         locks.putIfAbsent(filename, new Object());
+         lock = locks.get(filename);
+      }
+      return lock;
+   }
+
+   private static void checkBlockSize(int blocksize) {
+      boolean pow2 = (blocksize & (blocksize - 1)) == 0;
+      if (blocksize != DEFAULT_BLOCK_SIZE && !(pow2 && blocksize >= 4096 && blocksize <= 65536))
+         throw new RuntimeException("invalid block size " + blocksize);
+   }
+
+   /**
+    * Writes the header file of a new database,
+    * and forces it to disk.
+    */
+   private void writeHeader(int blocksize) {
+      try {
+         RandomAccessFile f = new RandomAccessFile(new File(dbDirectory, HEADER_FILE), "rw");
+         try {
+            f.writeInt(HEADER_MAGIC);
+            f.writeInt(HEADER_VERSION);
+            f.writeInt(blocksize);
+            f.getFD().sync();
+         }
+         finally {
+            f.close();
+         }
+      }
+      catch (IOException e) {
+         throw new RuntimeException("cannot write " + HEADER_FILE);
+      }
+   }
+
+   /**
+    * Returns the block size recorded in the header file of the database,
+    * or the default block size if the database has no header file.
+    */
+   private int readHeader() {
+      File hdr = new File(dbDirectory, HEADER_FILE);
+      if (!hdr.exists())
+         return DEFAULT_BLOCK_SIZE;
+      try {
+         DataInputStream in = new DataInputStream(new FileInputStream(hdr));
+         try {
+            if (in.readInt() != HEADER_MAGIC || in.readInt() > HEADER_VERSION)
+               throw new RuntimeException("unrecognized " + HEADER_FILE);
+            int blocksize = in.readInt();
+            checkBlockSize(blocksize);
+            return blocksize;
+         }
+         finally {
+            in.close();
+         }
+      }
+      catch (IOException e) {
+         throw new RuntimeException("cannot read " + HEADER_FILE);
+      }
+   }
+
    /**
     * Returns the file channel for the specified filename.
     * The file channel is stored in a map keyed on the filename.
     * If the file is not open, then it is opened and the file channel
     * is added to the map.
+    * If two threads open the file at the same time,
+    * the channel of the thread that loses is closed.
     * @param filename the specified filename
     * @return the file channel associated with the open file.
     * @throws IOException
@@ -133,9 +609,13 @@ public class FileMgr {
       FileChannel fc = openFiles.get(filename);
       if (fc == null) {
          File dbTable = new File(dbDirectory, filename);
-         RandomAccessFile f = new RandomAccessFile(dbTable, "rws");
+         RandomAccessFile f = new RandomAccessFile(dbTable, "rw");
          fc = f.getChannel();
-         openFiles.put(filename, fc);
+         FileChannel prev = openFiles.putIfAbsent(filename, fc);
+         if (prev != null) {
+            f.close();
+            fc = prev;
+         }
       }
       return fc;
    }
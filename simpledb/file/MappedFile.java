@@ -0,0 +1,100 @@
+package simpledb.file;
+
+import static simpledb.file.Page.BLOCK_SIZE;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A read-only memory mapping of a file, through which
+ * blocks are read without a system call.
+ * The file is mapped in regions of a whole number of blocks,
+ * each no larger than {@link #MAX_REGION_SIZE}.
+ * A region is mapped when a block in it is first read,
+ * and is mapped again, up to the new end of the file,
+ * when a block beyond its end is read after the file has grown.
+ * A region that is replaced is unmapped when it is garbage-collected.
+ * <p>
+ * Blocks written through the file channel are seen
+ * through the mapping, since both share the operating system's cache.
+ * @see FileMgr#setMapped(String, boolean)
+ */
+class MappedFile {
+   /**
+    * The largest number of bytes in one mapped region.
+    */
+   static final int MAX_REGION_SIZE = 1 << 26;
+
+   private String filename;
+   private FileChannel fc;
+   private int regionSize;
+   private volatile MappedByteBuffer[] regions = new MappedByteBuffer[0];
+
+   /**
+    * Creates a mapping of the file of the specified channel.
+    * No region is mapped until a block is read.
+    * @param filename the name of the file
+    * @param fc the channel of the file
+    */
+   MappedFile(String filename, FileChannel fc) {
+      this.filename = filename;
+      this.fc = fc;
+      regionSize = (MAX_REGION_SIZE / BLOCK_SIZE) * BLOCK_SIZE;
+   }
+
+   /**
+    * Copies the contents of the specified block from the mapping
+    * into the bytebuffer.
+    * Returns false, and leaves the bytebuffer unchanged,
+    * if the block does not lie wholly within the file.
+    * @param blknum the number of the block
+    * @param bb the bytebuffer
+    * @return true if the block was read
+    */
+   boolean read(int blknum, ByteBuffer bb) {
+      long pos = (long) blknum * BLOCK_SIZE;
+      int r = (int) (pos / regionSize);
+      int offset = (int) (pos % regionSize);
+      MappedByteBuffer[] rs = regions;
+      ByteBuffer region = (r < rs.length) ? rs[r] : null;
+      if (region == null || offset + BLOCK_SIZE > region.capacity()) {
+         region = map(r, offset + BLOCK_SIZE);
+         if (region == null)
+            return false;
+      }
+      ByteBuffer src = region.duplicate();
+      src.limit(offset + BLOCK_SIZE);
+      src.position(offset);
+      bb.put(src);
+      return true;
+   }
+
+   /**
+    * Maps the specified region, up to the end of the file,
+    * unless it is already mapped far enough.
+    * @param r the number of the region
+    * @param needed the number of bytes of the region that must be mapped
+    * @return the mapped region, or null if the file is too short
+    */
+   private synchronized MappedByteBuffer map(int r, int needed) {
+      MappedByteBuffer[] rs = regions;
+      if (r < rs.length && rs[r] != null && rs[r].capacity() >= needed)
+         return rs[r];
+      try {
+         long start = (long) r * regionSize;
+         long length = Math.min(regionSize, fc.size() - start);
+         if (length < needed)
+            return null;
+         MappedByteBuffer region = fc.map(FileChannel.MapMode.READ_ONLY, start, length);
+         MappedByteBuffer[] newregions = new MappedByteBuffer[Math.max(rs.length, r+1)];
+         System.arraycopy(rs, 0, newregions, 0, rs.length);
+         newregions[r] = region;
+         regions = newregions;
+         return region;
+      }
+      catch (IOException e) {
+         throw new RuntimeException("cannot map region " + r + " of " + filename);
+      }
+   }
+}
@@ -9,9 +9,16 @@ import java.text.*;
 
 /**
  * The contents of a disk block in memory.
- * A page is treated as an array of BLOCK_SIZE bytes.
+ * A page is treated as an array of BLOCK_SIZE bytes,
+ * where BLOCK_SIZE is the block size of the current database.
  * There are methods to get/set values into this array,
  * and to read/write the contents of this array to a disk block.
+ * <p>
+ * The get and set methods address the array by absolute offsets,
+ * and are not synchronized: a page shared between threads
+ * must be latched by its owner, as each {@link simpledb.buffer.Buffer Buffer}
+ * does for its page.
+ * Reading and writing the page are synchronized.
  * 
  * For an example of how to use Page and 
  * {@link Block} objects, 
@@ -40,12 +47,23 @@ import java.text.*;
  */
 public class Page {
    /**
-    * The number of bytes in a block.
+    * The number of bytes in a block of the current database.
+    * The size is chosen when a database is created, and is set
+    * by the {@link FileMgr} when the database is opened;
+    * pages created earlier have the default size.
+    * @see FileMgr#FileMgr(String, int)
+    */
+   public static int BLOCK_SIZE = 400;
+
+   /**
+    * The default number of bytes in a block,
+    * which is also the size of the blocks of databases
+    * created before the size could be chosen.
     * This value is set unreasonably low, so that it is easier
     * to create and test databases having a lot of blocks.
     * A more realistic value would be 4K.
     */
-   public static final int BLOCK_SIZE = 400;
+   public static final int DEFAULT_BLOCK_SIZE = 400;
    
    /**
     * The size of an integer in bytes.
@@ -53,6 +71,23 @@ public class Page {
     * a good idea to encode this value as a constant. 
     */
    public static final int INT_SIZE = Integer.SIZE / Byte.SIZE;
+
+   /**
+    * The size of a short integer in bytes.
+    */
+   public static final int SHORT_SIZE = Short.SIZE / Byte.SIZE;
+
+   /**
+    * The size of a long integer in bytes.
+    * Dates are also stored in this many bytes,
+    * as milliseconds since the epoch.
+    */
+   public static final int LONG_SIZE = Long.SIZE / Byte.SIZE;
+
+   /**
+    * The size of a boolean in bytes.
+    */
+   public static final int BOOLEAN_SIZE = 1;
    
    /**
     * The maximum size, in bytes, of a string of length n.
@@ -69,7 +104,14 @@ public class Page {
       return INT_SIZE + (n * (int)bytesPerChar);
    }
    
-   private ByteBuffer contents = ByteBuffer.allocateDirect(BLOCK_SIZE);
+   /**
+    * True if the default charset encodes each US-ASCII character
+    * as the single byte of the same value, so that strings of
+    * such characters can be compared without decoding them.
+    */
+   private static final boolean ASCII_ENCODING = isAsciiEncoding();
+
+   private ByteBuffer contents;
    private FileMgr filemgr = SimpleDB.fileMgr();
    
    /**
@@ -84,7 +126,19 @@ public class Page {
     * {@link simpledb.server.SimpleDB#initFileLogAndBufferMgr(String)}
     * is called first.
     */
-   public Page() {}
+   public Page() {
+      this(ByteBuffer.allocateDirect(BLOCK_SIZE));
+   }
+
+   /**
+    * Creates a page whose contents are held in the
+    * specified byte buffer, which must have BLOCK_SIZE bytes.
+    * This constructor is called by {@link PageArena}.
+    * @param contents the byte buffer holding the page
+    */
+   Page(ByteBuffer contents) {
+      this.contents = contents;
+   }
    
    /**
     * Populates the page with the contents of the specified disk block. 
@@ -102,6 +156,39 @@ public class Page {
       filemgr.write(blk, contents);
    }
    
+   /**
+    * Populates the specified pages with the contents of
+    * consecutive disk blocks, starting with the specified block,
+    * using a single vectored read.
+    * The pages are not locked; the caller must ensure
+    * that no other thread uses them.
+    * @param blk a reference to the first disk block
+    * @param pages the pages, one per block
+    */
+   public static void read(Block blk, Page[] pages) {
+      pages[0].filemgr.read(blk, contents(pages));
+   }
+
+   /**
+    * Writes the contents of the specified pages to
+    * consecutive disk blocks, starting with the specified block,
+    * using a single vectored write.
+    * The pages are not locked; the caller must ensure
+    * that no other thread modifies them.
+    * @param blk a reference to the first disk block
+    * @param pages the pages, one per block
+    */
+   public static void write(Block blk, Page[] pages) {
+      pages[0].filemgr.write(blk, contents(pages));
+   }
+
+   private static ByteBuffer[] contents(Page[] pages) {
+      ByteBuffer[] bbs = new ByteBuffer[pages.length];
+      for (int i=0; i<pages.length; i++)
+         bbs[i] = pages[i].contents;
+      return bbs;
+   }
+
    /**
     * Appends the contents of the page to the specified file.
     * @param filename the name of the file
@@ -118,9 +205,8 @@ public class Page {
     * @param offset the byte offset within the page
     * @return the integer value at that offset
     */
-   public synchronized int getInt(int offset) {
-      contents.position(offset);
-      return contents.getInt();
+   public int getInt(int offset) {
+      return contents.getInt(offset);
    }
    
    /**
@@ -128,9 +214,8 @@ public class Page {
     * @param offset the byte offset within the page
     * @param val the integer to be written to the page
     */
-   public synchronized void setInt(int offset, int val) {
-      contents.position(offset);
-      contents.putInt(val);
+   public void setInt(int offset, int val) {
+      contents.putInt(offset, val);
    }
    
    /**
@@ -140,12 +225,8 @@ public class Page {
     * @param offset the byte offset within the page
     * @return the string value at that offset
     */
-   public synchronized String getString(int offset) {
-      contents.position(offset);
-      int len = contents.getInt();
-      byte[] byteval = new byte[len];
-      contents.get(byteval);
-      return new String(byteval);
+   public String getString(int offset) {
+      return new String(getBytes(offset));
    }
    
    /**
@@ -153,69 +234,131 @@ public class Page {
     * @param offset the byte offset within the page
     * @param val the string to be written to the page
     */
-   public synchronized void setString(int offset, String val) {
-      contents.position(offset);
-      byte[] byteval = val.getBytes();
-      contents.putInt(byteval.length);
-      contents.put(byteval);
+   public void setString(int offset, String val) {
+      setBytes(offset, val.getBytes());
    }
-   
 
-   public synchronized short getShort(int offset) {
-      contents.position(offset);
-      return contents.getShort();
+   /**
+    * Compares the string value at the specified offset of the page
+    * with the specified string, as {@link String#compareTo} would.
+    * The encoded bytes are compared in place, character by character,
+    * so no string is created unless the stored value contains
+    * a character outside US-ASCII or the database's
+    * charset does not encode US-ASCII as single bytes.
+    * @param offset the byte offset within the page
+    * @param key the string to compare with
+    * @return a negative integer, zero, or a positive integer as the
+    * stored string is less than, equal to, or greater than the key
+    */
+   public int compareString(int offset, String key) {
+      if (!ASCII_ENCODING)
+         return getString(offset).compareTo(key);
+      int len = contents.getInt(offset);
+      int pos = offset + INT_SIZE;
+      int n = Math.min(len, key.length());
+      for (int i=0; i<n; i++) {
+         byte b = contents.get(pos + i);
+         if (b < 0)
+            return getString(offset).compareTo(key);
+         if (b != key.charAt(i))
+            return b - key.charAt(i);
+      }
+      for (int i=n; i<len; i++)
+         if (contents.get(pos + i) < 0)
+            return getString(offset).compareTo(key);
+      return len - key.length();
    }
-   
 
-   public synchronized void setShort(int offset, short val) {
-      contents.position(offset);
-      contents.putShort(val);
+   /**
+    * Returns the short integer value at a specified offset of the page.
+    * @param offset the byte offset within the page
+    * @return the short integer value at that offset
+    */
+   public short getShort(int offset) {
+      return contents.getShort(offset);
+   }
+
+   /**
+    * Writes a short integer to the specified offset on the page.
+    * @param offset the byte offset within the page
+    * @param val the short integer to be written to the page
+    */
+   public void setShort(int offset, short val) {
+      contents.putShort(offset, val);
+   }
+
+   /**
+    * Returns the long integer value at a specified offset of the page.
+    * @param offset the byte offset within the page
+    * @return the long integer value at that offset
+    */
+   public long getLong(int offset) {
+      return contents.getLong(offset);
+   }
+
+   /**
+    * Writes a long integer to the specified offset on the page.
+    * @param offset the byte offset within the page
+    * @param val the long integer to be written to the page
+    */
+   public void setLong(int offset, long val) {
+      contents.putLong(offset, val);
    }
    
-   public synchronized boolean getBoolean(int offset) {
-	      contents.position(offset);
-	      int len = contents.getInt();
-	      byte[] byteval = new byte[len];
-	      contents.get(byteval);
-	      boolean b = Boolean.parseBoolean(new String(byteval));
-	      return b;
-   }
-
-   public synchronized void setBoolean(int offset, boolean val1) {
-	      contents.position(offset);
-	      String val = String.valueOf(val1);
-	      byte[] byteval = val.getBytes();
-	      contents.putInt(byteval.length);
-	      contents.put(byteval);
+   /**
+    * Returns the boolean value at a specified offset of the page.
+    * A boolean is stored as a single byte, which is
+    * non-zero for true.
+    * @param offset the byte offset within the page
+    * @return the boolean value at that offset
+    */
+   public boolean getBoolean(int offset) {
+      return contents.get(offset) != 0;
+   }
+
+   /**
+    * Writes a boolean to the specified offset on the page.
+    * @param offset the byte offset within the page
+    * @param val the boolean to be written to the page
+    */
+   public void setBoolean(int offset, boolean val) {
+      contents.put(offset, (byte) (val ? 1 : 0));
    }
    
-   public synchronized byte[] getBytes(int offset) {
-	      contents.position(offset);
-	      int len = contents.getInt();
-	      byte[] byteval = new byte[len];
-	      contents.get(byteval);
-	      return byteval;
-   }
-
-   public synchronized void setBytes(int offset, byte[] val) {
-	      contents.position(offset);
-	      byte[] byteval = val;
-	      contents.putInt(byteval.length);
-	      contents.put(byteval);
-	}
+   public byte[] getBytes(int offset) {
+      int len = contents.getInt(offset);
+      byte[] byteval = new byte[len];
+      ByteBuffer view = contents.duplicate();
+      view.position(offset + INT_SIZE);
+      view.get(byteval);
+      return byteval;
+   }
+
+   public void setBytes(int offset, byte[] val) {
+      contents.putInt(offset, val.length);
+      ByteBuffer view = contents.duplicate();
+      view.position(offset + INT_SIZE);
+      view.put(val);
+   }
    
-   public synchronized java.util.Date getDate(int offset) {
-	   	 contents.position(offset);
-         long l = contents.getLong();
-         java.util.Date d = new java.util.Date(l);
-         return d;
+   public java.util.Date getDate(int offset) {
+      return new java.util.Date(contents.getLong(offset));
    }
    
-   public synchronized void setDate(int offset, java.util.Date val1) {
-       contents.position(offset);
-       long val = val1.getTime();
-       contents.putLong(val);
-     
+   public void setDate(int offset, java.util.Date val) {
+      contents.putLong(offset, val.getTime());
    }
 
+   private static boolean isAsciiEncoding() {
+      char[] chars = new char[128];
+      for (int i=0; i<chars.length; i++)
+         chars[i] = (char) i;
+      byte[] bytes = new String(chars).getBytes();
+      if (bytes.length != chars.length)
+         return false;
+      for (int i=0; i<bytes.length; i++)
+         if (bytes[i] != i)
+            return false;
+      return true;
+   }
 }
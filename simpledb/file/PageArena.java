@@ -0,0 +1,119 @@
+package simpledb.file;
+
+import static simpledb.file.Page.BLOCK_SIZE;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A fixed number of pages carved out of a few large
+ * off-heap slabs of memory.
+ * Each page is a slice of a slab, so creating the pages
+ * makes one native allocation per slab rather than one per page,
+ * and the pages lie next to each other in memory.
+ * The memory is held for the life of the arena.
+ * <p>
+ * The slabs are either direct byte buffers, or regions of a
+ * temporary file mapped into memory; the file is deleted
+ * as soon as it is mapped, so it lives only as long as the mapping.
+ * The buffer manager uses an arena for the pages of its buffers.
+ */
+public class PageArena {
+   /**
+    * The largest number of bytes in one slab.
+    */
+   public static final int MAX_SLAB_SIZE = 1 << 30;
+
+   private ByteBuffer[] slabs;
+   private int pagesPerSlab;
+   private int numpages;
+   private boolean mapped;
+
+   /**
+    * Creates an arena holding the specified number of pages,
+    * in direct byte buffers.
+    * @param numpages the number of pages
+    */
+   public PageArena(int numpages) {
+      this(numpages, false);
+   }
+
+   /**
+    * Creates an arena holding the specified number of pages,
+    * in direct byte buffers or in mapped memory.
+    * @param numpages the number of pages
+    * @param mapped true if the slabs are to be mapped from a temporary file
+    */
+   public PageArena(int numpages, boolean mapped) {
+      this.numpages = numpages;
+      this.mapped = mapped;
+      pagesPerSlab = MAX_SLAB_SIZE / BLOCK_SIZE;
+      int numslabs = (numpages + pagesPerSlab - 1) / pagesPerSlab;
+      slabs = new ByteBuffer[numslabs];
+      for (int i=0; i<numslabs; i++) {
+         int n = Math.min(pagesPerSlab, numpages - i*pagesPerSlab);
+         slabs[i] = mapped ? map(n * BLOCK_SIZE) : ByteBuffer.allocateDirect(n * BLOCK_SIZE);
+      }
+   }
+
+   /**
+    * Returns a new page whose contents are the specified
+    * slice of the arena.
+    * Two pages created for the same slice share their contents.
+    * @param n the number of the slice, from 0
+    * @return a page over that slice
+    */
+   public synchronized Page page(int n) {
+      if (n < 0 || n >= numpages)
+         throw new RuntimeException("page " + n + " is outside the arena");
+      ByteBuffer slab = slabs[n / pagesPerSlab];
+      int offset = (n % pagesPerSlab) * BLOCK_SIZE;
+      slab.limit(offset + BLOCK_SIZE);
+      slab.position(offset);
+      ByteBuffer slice = slab.slice();
+      slab.clear();
+      return new Page(slice);
+   }
+
+   /**
+    * Returns the number of pages in the arena.
+    * @return the number of pages
+    */
+   public int size() {
+      return numpages;
+   }
+
+   /**
+    * Returns the number of bytes of memory that the arena holds.
+    * @return the size of the arena in bytes
+    */
+   public long capacity() {
+      return (long) numpages * BLOCK_SIZE;
+   }
+
+   /**
+    * Returns true if the arena's memory is mapped from a file.
+    * @return true if the arena is mapped
+    */
+   public boolean isMapped() {
+      return mapped;
+   }
+
+   private static ByteBuffer map(int size) {
+      try {
+         File f = File.createTempFile("simpledb-arena", null);
+         RandomAccessFile raf = new RandomAccessFile(f, "rw");
+         try {
+            FileChannel fc = raf.getChannel();
+            return fc.map(FileChannel.MapMode.READ_WRITE, 0, size);
+         }
+         finally {
+            raf.close();
+            f.delete();
+         }
+      }
+      catch (IOException e) {
+         throw new RuntimeException("cannot map " + size + " bytes for the buffer pool");
+      }
+   }
+}
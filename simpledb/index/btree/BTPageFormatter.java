@@ -1,7 +1,7 @@
 package simpledb.index.btree;
 
 import static simpledb.file.Page.*;
-import static java.sql.Types.INTEGER;
+import static java.sql.Types.*;
 import simpledb.file.Page;
 import simpledb.buffer.PageFormatter;
 import simpledb.record.TableInfo;
@@ -46,8 +46,15 @@ public class BTPageFormatter implements PageFormatter {
    private void makeDefaultRecord(Page page, int pos) {
       for (String fldname : ti.schema().fields()) {
          int offset = ti.offset(fldname);
-         if (ti.schema().type(fldname) == INTEGER)
+         int fldtype = ti.schema().type(fldname);
+         if (fldtype == INTEGER)
             page.setInt(pos + offset, 0);
+         else if (fldtype == SMALLINT)
+            page.setShort(pos + offset, (short) 0);
+         else if (fldtype == BIGINT || fldtype == DATE || fldtype == TIMESTAMP)
+            page.setLong(pos + offset, 0);
+         else if (fldtype == BOOLEAN)
+            page.setBoolean(pos + offset, false);
          else
             page.setString(pos + offset, "");
       }
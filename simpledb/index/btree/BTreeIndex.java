@@ -1,6 +1,6 @@
 package simpledb.index.btree;
 
-import static java.sql.Types.INTEGER;
+import static java.sql.Types.*;
 import simpledb.file.Block;
 import simpledb.tx.Transaction;
 import simpledb.record.*;
@@ -47,11 +47,7 @@ public class BTreeIndex implements Index {
       BTreePage page = new BTreePage(rootblk, dirTi, tx);
       if (page.getNumRecs() == 0) {
 			// insert initial directory entry
-         int fldtype = dirsch.type("dataval");
-         Constant minval = (fldtype == INTEGER) ?
-            new IntConstant(Integer.MIN_VALUE) :
-            new StringConstant("");
-         page.insertDir(0, minval, 0);
+         page.insertDir(0, minValue(dirsch.type("dataval")), 0);
 		}
       page.close();
    }
@@ -151,4 +147,25 @@ public class BTreeIndex implements Index {
    public static int searchCost(int numblocks, int rpb) {
       return 1 + (int)(Math.log(numblocks) / Math.log(rpb));
    }
+   
+   /**
+    * Returns the smallest value of the specified type,
+    * which is the key of the initial directory entry.
+    * @param fldtype the type of the indexed field
+    * @return the smallest constant of that type
+    */
+   private static Constant minValue(int fldtype) {
+      if (fldtype == INTEGER)
+         return new IntConstant(Integer.MIN_VALUE);
+      else if (fldtype == SMALLINT)
+         return new ShortConstant(Short.MIN_VALUE);
+      else if (fldtype == BIGINT)
+         return new LongConstant(Long.MIN_VALUE);
+      else if (fldtype == DATE || fldtype == TIMESTAMP)
+         return new DateConstant(Long.MIN_VALUE);
+      else if (fldtype == BOOLEAN)
+         return new BooleanConstant(false);
+      else
+         return new StringConstant("");
+   }
 }
@@ -1,11 +1,12 @@
 package simpledb.index.btree;
 
-import static java.sql.Types.INTEGER;
+import static java.sql.Types.*;
 import static simpledb.file.Page.*;
 import simpledb.file.Block;
 import simpledb.record.*;
 import simpledb.query.*;
 import simpledb.tx.Transaction;
+import java.util.Date;
 
 /**
  * B-tree directory and leaf pages have many commonalities:
@@ -43,7 +44,7 @@ public class BTreePage {
     */
    public int findSlotBefore(Constant searchkey) {
       int slot = 0;
-      while (slot < getNumRecs() && getDataVal(slot).compareTo(searchkey) < 0)
+      while (slot < getNumRecs() && compareDataVal(slot, searchkey) < 0)
          slot++;
       return slot-1;
    }
@@ -91,6 +92,33 @@ public class BTreePage {
       return getVal(slot, "dataval");
    }
    
+   /**
+    * Compares the dataval of the record at the specified slot
+    * with the specified search key.
+    * A string dataval is compared in place in the page.
+    * @param slot the integer slot of an index record
+    * @param searchkey the search key
+    * @return a negative integer, zero, or a positive integer as the
+    * dataval is less than, equal to, or greater than the search key
+    */
+   public int compareDataVal(int slot, Constant searchkey) {
+      int type = ti.schema().type("dataval");
+      int pos = fldpos(slot, "dataval");
+      Object key = searchkey.asJavaVal();
+      if (type == INTEGER)
+         return Long.compare(tx.getInt(currentblk, pos), ((Number) key).longValue());
+      else if (type == SMALLINT)
+         return Long.compare(tx.getShort(currentblk, pos), ((Number) key).longValue());
+      else if (type == BIGINT)
+         return Long.compare(tx.getLong(currentblk, pos), ((Number) key).longValue());
+      else if (type == DATE || type == TIMESTAMP)
+         return Long.compare(tx.getLong(currentblk, pos), ((Date) key).getTime());
+      else if (type == BOOLEAN)
+         return Boolean.compare(tx.getBoolean(currentblk, pos), (Boolean) key);
+      else
+         return tx.compareString(currentblk, pos, (String) key);
+   }
+   
    /**
     * Returns the value of the page's flag field
     * @return the value of the page's flag field
@@ -191,17 +219,21 @@ public class BTreePage {
       return tx.getInt(currentblk, pos);
    }
    
-   private String getString(int slot, String fldname) {
-      int pos = fldpos(slot, fldname);
-      return tx.getString(currentblk, pos);
-   }
-   
    private Constant getVal(int slot, String fldname) {
       int type = ti.schema().type(fldname);
+      int pos = fldpos(slot, fldname);
       if (type == INTEGER)
-         return new IntConstant(getInt(slot, fldname));
+         return new IntConstant(tx.getInt(currentblk, pos));
+      else if (type == SMALLINT)
+         return new ShortConstant(tx.getShort(currentblk, pos));
+      else if (type == BIGINT)
+         return new LongConstant(tx.getLong(currentblk, pos));
+      else if (type == DATE || type == TIMESTAMP)
+         return new DateConstant(tx.getLong(currentblk, pos));
+      else if (type == BOOLEAN)
+         return new BooleanConstant(tx.getBoolean(currentblk, pos));
       else
-         return new StringConstant(getString(slot, fldname));
+         return new StringConstant(tx.getString(currentblk, pos));
    }
    
    private void setInt(int slot, String fldname, int val) {
@@ -209,17 +241,21 @@ public class BTreePage {
       tx.setInt(currentblk, pos, val);
    }
    
-   private void setString(int slot, String fldname, String val) {
-      int pos = fldpos(slot, fldname);
-      tx.setString(currentblk, pos, val);
-   }
-   
    private void setVal(int slot, String fldname, Constant val) {
       int type = ti.schema().type(fldname);
+      int pos = fldpos(slot, fldname);
       if (type == INTEGER)
-         setInt(slot, fldname, (Integer)val.asJavaVal());
+         tx.setInt(currentblk, pos, ((Number)val.asJavaVal()).intValue());
+      else if (type == SMALLINT)
+         tx.setShort(currentblk, pos, ((Number)val.asJavaVal()).shortValue());
+      else if (type == BIGINT)
+         tx.setLong(currentblk, pos, ((Number)val.asJavaVal()).longValue());
+      else if (type == DATE || type == TIMESTAMP)
+         tx.setLong(currentblk, pos, ((Date)val.asJavaVal()).getTime());
+      else if (type == BOOLEAN)
+         tx.setBoolean(currentblk, pos, (Boolean)val.asJavaVal());
       else
-         setString(slot, fldname, (String)val.asJavaVal());
+         tx.setString(currentblk, pos, (String)val.asJavaVal());
    }
    
    private void setNumRecs(int n) {
@@ -108,6 +108,17 @@ public class IndexJoinScan implements Scan {
          return s.getString(fldname);
    }
    
+   /**
+    * Compares the value of the specified field with the constant.
+    * @see simpledb.query.Scan#compareVal(java.lang.String, simpledb.query.Constant)
+    */
+   public int compareVal(String fldname, Constant val) {
+      if (ts.hasField(fldname))
+         return ts.compareVal(fldname, val);
+      else
+         return s.compareVal(fldname, val);
+   }
+   
    /** Returns true if the field is in the schema.
      * @see simpledb.query.Scan#hasField(java.lang.String)
      */
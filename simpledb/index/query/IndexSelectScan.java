@@ -88,6 +88,15 @@ public class IndexSelectScan implements Scan {
       return ts.getString(fldname);
    }
    
+   /**
+    * Compares the value of the field of the current data record
+    * with the constant.
+    * @see simpledb.query.Scan#compareVal(java.lang.String, simpledb.query.Constant)
+    */
+   public int compareVal(String fldname, Constant val) {
+      return ts.compareVal(fldname, val);
+   }
+   
    /**
     * Returns whether the data record has the specified field.
     * @see simpledb.query.Scan#hasField(java.lang.String)
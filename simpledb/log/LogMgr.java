@@ -13,6 +13,22 @@ import java.util.*;
  * The log manager does not understand the meaning of these
  * values, which are written and read by the
  * {@link simpledb.tx.recovery.RecoveryMgr recovery manager}.
+ * <p>
+ * The LSN of a log record is the byte offset in the log file
+ * of the end of the record, so LSNs increase with each record.
+ * The manager tracks the LSN up to which the log has been
+ * written to the file, and the LSN up to which it is durable;
+ * flushing a record that is already durable does nothing.
+ * <p>
+ * Forcing the log is shared between concurrent callers.
+ * A caller whose record is not yet durable either
+ * waits for a force in progress, or becomes the leader of the next one.
+ * The leader writes the current page if it holds unwritten records,
+ * and forces the file once, which makes durable every record
+ * appended before the write; it then releases every caller
+ * waiting on those records.
+ * A leader forcing for a commit may first wait a short window
+ * for other commits to join it; see {@link #setGroupCommit(long, int)}.
  * @author Edward Sciore
  */
 public class LogMgr implements Iterable<BasicLogRecord> {
@@ -26,6 +42,12 @@ public class LogMgr implements Iterable<BasicLogRecord> {
    private Page mypage = new Page();
    private Block currentblk;
    private int currentpos;
+   private long writtenLSN;      // the end of the log as last written to the file
+   private long flushedLSN;      // the end of the log known to be on disk
+   private boolean forcing = false;
+   private int flushers = 0;     // callers waiting for their records to be durable
+   private long groupWindow = 0; // nanoseconds
+   private int groupSize = 1;
 
    /**
     * Creates the manager for the specified log file.
@@ -50,17 +72,113 @@ public class LogMgr implements Iterable<BasicLogRecord> {
          mypage.read(currentblk);
          currentpos = getLastRecordPosition() + INT_SIZE;
       }
+      writtenLSN = flushedLSN = currentLSN();
    }
 
    /**
     * Ensures that the log records corresponding to the
     * specified LSN has been written to disk.
     * All earlier log records will also be written to disk.
+    * The log file is forced, so the records are durable
+    * when the method returns.
+    * If the record is already durable, the method does nothing;
+    * a negative LSN denotes no record.
     * @param lsn the LSN of a log record
     */
-   public void flush(int lsn) {
-      if (lsn >= currentLSN())
-         flush();
+   public void flush(long lsn) {
+      flush(lsn, 0);
+   }
+
+   /**
+    * Ensures that the specified commit (or rollback) record
+    * is durable, as {@link #flush(long)} does.
+    * If this caller has to lead a force of the log, it first waits
+    * up to the group commit window, or until the group commit size
+    * of callers are waiting, so that one force acknowledges them all.
+    * @param lsn the LSN of the commit record
+    */
+   public void commit(long lsn) {
+      flush(lsn, groupWindow);
+   }
+
+   /**
+    * Sets how long a commit that leads a force of the log
+    * waits for other commits to join it, and how many
+    * waiting callers end the wait early.
+    * A window of 0 forces at once; concurrent commits then
+    * share only the forces that they find in progress.
+    * @param micros the window, in microseconds
+    * @param size the number of waiting callers that ends the window
+    */
+   public synchronized void setGroupCommit(long micros, int size) {
+      if (micros < 0 || size < 1)
+         throw new RuntimeException("invalid group commit window " + micros + " or size " + size);
+      groupWindow = micros * 1000;
+      groupSize = size;
+   }
+
+   private void flush(long lsn, long window) {
+      long upto;
+      synchronized (this) {
+         if (lsn <= flushedLSN)
+            return;
+         flushers++;
+         notifyAll();  // a leader may be waiting for the group to fill
+         try {
+            while (forcing && flushedLSN < lsn)
+               waitFor(0);
+            if (flushedLSN >= lsn)
+               return;
+            forcing = true;
+            try {
+               if (window > 0) {
+                  long deadline = System.nanoTime() + window;
+                  long remaining = window;
+                  while (flushers < groupSize && remaining > 0) {
+                     waitFor(remaining);
+                     remaining = deadline - System.nanoTime();
+                  }
+               }
+               // records in earlier blocks were written when their block filled
+               if (writtenLSN < currentLSN())
+                  flush();
+            }
+            catch (RuntimeException e) {
+               forcing = false;
+               notifyAll();
+               throw e;
+            }
+            upto = writtenLSN;
+         }
+         finally {
+            flushers--;
+         }
+      }
+      boolean forced = false;
+      try {
+         SimpleDB.fileMgr().force(logfile);
+         forced = true;
+      }
+      finally {
+         synchronized (this) {
+            if (forced && upto > flushedLSN)
+               flushedLSN = upto;
+            forcing = false;
+            notifyAll();
+         }
+      }
+   }
+
+   private void waitFor(long nanos) {
+      try {
+         if (nanos > 0)
+            wait(nanos / 1000000, (int) (nanos % 1000000));
+         else
+            wait();
+      }
+      catch (InterruptedException e) {
+         throw new RuntimeException("interrupted while forcing the log");
+      }
    }
 
    /**
@@ -80,9 +198,9 @@ public class LogMgr implements Iterable<BasicLogRecord> {
     * is the offset of the corresponding integer for the previous log record.
     * These integers allow log records to be read in reverse order.
     * @param rec the list of values
-    * @return the LSN of the final value
+    * @return the LSN of the record
     */
-   public synchronized int append(Object[] rec) {
+   public synchronized long append(Object[] rec) {
       int recsize = INT_SIZE;  // 4 bytes for the integer that points to the previous log record
       for (Object obj : rec)
          recsize += size(obj);
@@ -124,20 +242,21 @@ public class LogMgr implements Iterable<BasicLogRecord> {
    }
 
    /**
-    * Returns the LSN of the most recent log record.
-    * As implemented, the LSN is the block number where the record is stored.
-    * Thus every log record in a block has the same LSN.
+    * Returns the LSN of the most recent log record,
+    * which is the offset in the log file of the end of that record.
     * @return the LSN of the most recent log record
     */
-   private int currentLSN() {
-      return currentblk.number();
+   private long currentLSN() {
+      return (long) currentblk.number() * BLOCK_SIZE + currentpos;
    }
 
    /**
     * Writes the current page to the log file.
+    * The page is latched by the log manager.
     */
    private void flush() {
       mypage.write(currentblk);
+      writtenLSN = currentLSN();
    }
 
    /**
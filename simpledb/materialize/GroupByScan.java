@@ -116,6 +116,15 @@ public class GroupByScan implements Scan {
       return (String)getVal(fldname).asJavaVal();
    }
    
+   /**
+    * Compares the value of the specified field with the constant.
+    * The field's value is obtained as in {@link #getVal(String)}.
+    * @see simpledb.query.Scan#compareVal(java.lang.String, simpledb.query.Constant)
+    */
+   public int compareVal(String fldname, Constant val) {
+      return getVal(fldname).compareTo(val);
+   }
+   
    /* Returns true if the specified field is either a 
     * grouping field or created by an aggregation function.
     * @see simpledb.query.Scan#hasField(java.lang.String)
@@ -62,21 +62,21 @@ public class MergeJoinScan implements Scan {
     */
    public boolean next() {
       boolean hasmore2 = s2.next();
-      if (hasmore2 && s2.getVal(fldname2).equals(joinval))
+      if (hasmore2 && joinval != null && s2.compareVal(fldname2, joinval) == 0)
          return true;
       
       boolean hasmore1 = s1.next();
-      if (hasmore1 && s1.getVal(fldname1).equals(joinval)) {
+      if (hasmore1 && joinval != null && s1.compareVal(fldname1, joinval) == 0) {
          s2.restorePosition();
          return true;
       }
       
       while (hasmore1 && hasmore2) {
          Constant v1 = s1.getVal(fldname1);
-         Constant v2 = s2.getVal(fldname2);
-         if (v1.compareTo(v2) < 0)
+         int cmp = s2.compareVal(fldname2, v1);
+         if (cmp > 0)
             hasmore1 = s1.next();
-         else if (v1.compareTo(v2) > 0)
+         else if (cmp < 0)
             hasmore2 = s2.next();
          else {
             s2.savePosition();
@@ -126,6 +126,19 @@ public class MergeJoinScan implements Scan {
          return s2.getString(fldname);
    }
    
+   /** 
+    * Compares the value of the specified field with the constant.
+    * The comparison is made by whichever scan
+    * contains the field.
+    * @see simpledb.query.Scan#compareVal(java.lang.String, simpledb.query.Constant)
+    */
+   public int compareVal(String fldname, Constant val) {
+      if (s1.hasField(fldname))
+         return s1.compareVal(fldname, val);
+      else
+         return s2.compareVal(fldname, val);
+   }
+   
    /**
     * Returns true if the specified field is in
     * either of the underlying scans.
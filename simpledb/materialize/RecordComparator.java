@@ -34,10 +34,9 @@ public class RecordComparator implements Comparator<Scan> {
    public int compare(Scan s1, Scan s2) {
       for (String fldname : fields) {
          Constant val1 = s1.getVal(fldname);
-         Constant val2 = s2.getVal(fldname);
-         int result = val1.compareTo(val2);
+         int result = s2.compareVal(fldname, val1);
          if (result != 0)
-            return result;
+            return (result < 0) ? 1 : -1;
       }
       return 0;
    }
@@ -1,6 +1,7 @@
 package simpledb.materialize;
 
 import simpledb.tx.Transaction;
+import simpledb.buffer.AccessStrategy;
 import simpledb.record.*;
 import simpledb.query.*;
 
@@ -93,14 +94,14 @@ public class SortPlan implements Plan {
          return temps;
       TempTable currenttemp = new TempTable(sch, tx);
       temps.add(currenttemp);
-      UpdateScan currentscan = currenttemp.open();
+      UpdateScan currentscan = currenttemp.open(AccessStrategy.bulkWrite());
       while (copy(src, currentscan))
          if (comp.compare(src, currentscan) < 0) {
          // start a new run
          currentscan.close();
          currenttemp = new TempTable(sch, tx);
          temps.add(currenttemp);
-         currentscan = (UpdateScan) currenttemp.open();
+         currentscan = (UpdateScan) currenttemp.open(AccessStrategy.bulkWrite());
       }
       currentscan.close();
       return temps;
@@ -122,7 +123,7 @@ public class SortPlan implements Plan {
       Scan src1 = p1.open();
       Scan src2 = p2.open();
       TempTable result = new TempTable(sch, tx);
-      UpdateScan dest = result.open();
+      UpdateScan dest = result.open(AccessStrategy.bulkWrite());
       
       boolean hasmore1 = src1.next();
       boolean hasmore2 = src2.next();
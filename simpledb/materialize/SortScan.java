@@ -119,6 +119,15 @@ public class SortScan implements Scan {
       return currentscan.getString(fldname);
    }
    
+   /**
+    * Compares the value of the specified field
+    * of the current scan with the constant.
+    * @see simpledb.query.Scan#compareVal(java.lang.String, simpledb.query.Constant)
+    */
+   public int compareVal(String fldname, Constant val) {
+      return currentscan.compareVal(fldname, val);
+   }
+   
    /**
     * Returns true if the specified field is in the current scan.
     * @see simpledb.query.Scan#hasField(java.lang.String)
@@ -1,6 +1,7 @@
 package simpledb.materialize;
 
 import simpledb.tx.Transaction;
+import simpledb.buffer.AccessStrategy;
 import simpledb.record.*;
 import simpledb.query.*;
 
@@ -30,9 +31,24 @@ public class TempTable {
    
    /**
     * Opens a table scan for the temporary table.
+    * The scan goes through the buffer pool, so a table
+    * that is scanned repeatedly can stay resident.
     */
    public UpdateScan open() {
-      return new TableScan(ti, tx);
+      return open(null);
+   }
+   
+   /**
+    * Opens a table scan for the temporary table,
+    * using the specified access strategy.
+    * A writer that fills the table once and then streams it,
+    * such as a run of a sort, can request
+    * {@link AccessStrategy#bulkWrite()} so that its pages are
+    * written from a small ring of buffers instead of filling the pool.
+    * @param strategy the access strategy, or null for the default
+    */
+   public UpdateScan open(AccessStrategy strategy) {
+      return new TableScan(ti, tx, strategy);
    }
    
    /**
@@ -1,6 +1,5 @@
 package simpledb.metadata;
 
-import static java.sql.Types.INTEGER;
 import static simpledb.file.Page.BLOCK_SIZE;
 import simpledb.server.SimpleDB;
 import simpledb.tx.Transaction;
@@ -105,12 +104,9 @@ public class IndexInfo {
       Schema sch = new Schema();
       sch.addIntField("block");
       sch.addIntField("id");
-      if (ti.schema().type(fldname) == INTEGER)
-         sch.addIntField("dataval");
-      else {
-         int fldlen = ti.schema().length(fldname);
-         sch.addStringField("dataval", fldlen);
-      }
+      int fldtype = ti.schema().type(fldname);
+      int fldlen = ti.schema().length(fldname);
+      sch.addField("dataval", fldtype, fldlen);
       return sch;
    }
 }
@@ -1,12 +1,14 @@
 package simpledb.multibuffer;
 
-import static java.sql.Types.INTEGER;
+import static java.sql.Types.*;
 import simpledb.tx.Transaction;
 import simpledb.record.*;
 import simpledb.file.Block;
 import simpledb.query.*;
+import simpledb.server.SimpleDB;
 
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.List;
 
 /**
@@ -21,6 +23,8 @@ public class ChunkScan implements Scan {
    
    /**
     * Creates a chunk consisting of the specified pages. 
+    * The blocks of the chunk that are not resident are read
+    * before they are pinned, with as few vectored reads as possible.
     * @param ti the metadata for the chunked table
     * @param startbnum the starting block number
     * @param endbnum  the ending block number
@@ -32,6 +36,7 @@ public class ChunkScan implements Scan {
       this.endbnum   = endbnum;
       this.sch = ti.schema();
       String filename = ti.fileName();
+      SimpleDB.bufferMgr().readRun(filename, startbnum, endbnum);
       for (int i=startbnum; i<=endbnum; i++) {
          Block blk = new Block(filename, i);
          pages.add(new RecordPage(blk, ti, tx));
@@ -76,8 +81,17 @@ public class ChunkScan implements Scan {
     * @see simpledb.query.Scan#getVal(java.lang.String)
     */
    public Constant getVal(String fldname) {
-      if (sch.type(fldname) == INTEGER)
+      int fldtype = sch.type(fldname);
+      if (fldtype == INTEGER)
          return new IntConstant(rp.getInt(fldname));
+      else if (fldtype == SMALLINT)
+         return new ShortConstant(rp.getShort(fldname));
+      else if (fldtype == BIGINT)
+         return new LongConstant(rp.getLong(fldname));
+      else if (fldtype == DATE || fldtype == TIMESTAMP)
+         return new DateConstant(rp.getLong(fldname));
+      else if (fldtype == BOOLEAN)
+         return new BooleanConstant(rp.getBoolean(fldname));
       else
          return new StringConstant(rp.getString(fldname));
    }
@@ -96,6 +110,25 @@ public class ChunkScan implements Scan {
       return rp.getString(fldname);
    }
    
+   /**
+    * @see simpledb.query.Scan#compareVal(java.lang.String, simpledb.query.Constant)
+    */
+   public int compareVal(String fldname, Constant val) {
+      int fldtype = sch.type(fldname);
+      if (fldtype == INTEGER)
+         return Long.compare(rp.getInt(fldname), ((Number) val.asJavaVal()).longValue());
+      else if (fldtype == SMALLINT)
+         return Long.compare(rp.getShort(fldname), ((Number) val.asJavaVal()).longValue());
+      else if (fldtype == BIGINT)
+         return Long.compare(rp.getLong(fldname), ((Number) val.asJavaVal()).longValue());
+      else if (fldtype == DATE || fldtype == TIMESTAMP)
+         return Long.compare(rp.getLong(fldname), ((Date) val.asJavaVal()).getTime());
+      else if (fldtype == BOOLEAN)
+         return Boolean.compare(rp.getBoolean(fldname), (Boolean) val.asJavaVal());
+      else
+         return rp.compareString(fldname, (String) val.asJavaVal());
+   }
+   
    /**
     * @see simpledb.query.Scan#hasField(java.lang.String)
     */
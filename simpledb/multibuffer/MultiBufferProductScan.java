@@ -95,6 +95,16 @@ public class MultiBufferProductScan implements Scan {
       return prodscan.getString(fldname);
    }
    
+   /** 
+    * Compares the value of the specified field with the constant.
+    * The comparison is made by whichever scan
+    * contains the field.
+    * @see simpledb.query.Scan#compareVal(java.lang.String, simpledb.query.Constant)
+    */
+   public int compareVal(String fldname, Constant val) {
+      return prodscan.compareVal(fldname, val);
+   }
+   
    /**
     * Returns true if the specified field is in
     * either of the underlying scans.
@@ -96,6 +96,23 @@ public class Lexer {
       return i;
    }
    
+   /**
+    * Throws an exception if the current token is not 
+    * an integer. 
+    * Otherwise, returns that integer as a long
+    * and moves to the next token.
+    * The tokenizer reads numbers as doubles, so integers
+    * beyond 2^53 in magnitude are not exact.
+    * @return the long value of the current token
+    */
+   public long eatLongConstant() {
+      if (!matchIntConstant())
+         throw new BadSyntaxException();
+      long n = (long) tok.nval;
+      nextToken();
+      return n;
+   }
+   
    /**
     * Throws an exception if the current token is not 
     * a string. 
@@ -149,6 +166,7 @@ public class Lexer {
    private void initKeywords() {
       keywords = Arrays.asList("select", "from", "where", "and",
                                "insert", "into", "values", "delete", "update", "set", 
-                               "create", "table", "int", "varchar", "view", "as", "index", "on");
+                               "create", "table", "int", "varchar", "view", "as", "index", "on",
+                               "smallint", "bigint", "boolean", "date", "timestamp", "true", "false");
    }
 }
\ No newline at end of file
@@ -24,8 +24,47 @@ public class Parser {
    public Constant constant() {
       if (lex.matchStringConstant())
          return new StringConstant(lex.eatStringConstant());
-      else
-         return new IntConstant(lex.eatIntConstant());
+      else if (lex.matchKeyword("true")) {
+         lex.eatKeyword("true");
+         return new BooleanConstant(true);
+      }
+      else if (lex.matchKeyword("false")) {
+         lex.eatKeyword("false");
+         return new BooleanConstant(false);
+      }
+      else if (lex.matchKeyword("date")) {
+         lex.eatKeyword("date");
+         return new DateConstant(dateValue(lex.eatStringConstant()));
+      }
+      else if (lex.matchKeyword("timestamp")) {
+         lex.eatKeyword("timestamp");
+         return new DateConstant(timestampValue(lex.eatStringConstant()));
+      }
+      else {
+         long n = lex.eatLongConstant();
+         if (n == (int) n)
+            return new IntConstant((int) n);
+         else
+            return new LongConstant(n);
+      }
+   }
+   
+   private java.util.Date dateValue(String s) {
+      try {
+         return java.sql.Date.valueOf(s);  // yyyy-mm-dd
+      }
+      catch(IllegalArgumentException e) {
+         throw new BadSyntaxException();
+      }
+   }
+   
+   private java.util.Date timestampValue(String s) {
+      try {
+         return java.sql.Timestamp.valueOf(s);  // yyyy-mm-dd hh:mm:ss[.f]
+      }
+      catch(IllegalArgumentException e) {
+         throw new BadSyntaxException();
+      }
    }
    
    public Expression expression() {
@@ -208,6 +247,26 @@ public class Parser {
          lex.eatKeyword("int");
          schema.addIntField(fldname);
       }
+      else if (lex.matchKeyword("smallint")) {
+         lex.eatKeyword("smallint");
+         schema.addShortField(fldname);
+      }
+      else if (lex.matchKeyword("bigint")) {
+         lex.eatKeyword("bigint");
+         schema.addLongField(fldname);
+      }
+      else if (lex.matchKeyword("boolean")) {
+         lex.eatKeyword("boolean");
+         schema.addBooleanField(fldname);
+      }
+      else if (lex.matchKeyword("date")) {
+         lex.eatKeyword("date");
+         schema.addDateField(fldname);
+      }
+      else if (lex.matchKeyword("timestamp")) {
+         lex.eatKeyword("timestamp");
+         schema.addTimestampField(fldname);
+      }
       else {
          lex.eatKeyword("varchar");
          lex.eatDelim('(');
@@ -0,0 +1,43 @@
+package simpledb.query;
+
+/**
+ * The class that wraps Java booleans as database constants.
+ * False is ordered before true.
+ */
+public class BooleanConstant implements Constant {
+   private Boolean val;
+   
+   /**
+    * Create a constant by wrapping the specified boolean.
+    * @param b the boolean value
+    */
+   public BooleanConstant(boolean b) {
+      val = b;
+   }
+   
+   /**
+    * Unwraps the Boolean and returns it.
+    * @see simpledb.query.Constant#asJavaVal()
+    */
+   public Object asJavaVal() {
+      return val;
+   }
+   
+   public boolean equals(Object obj) {
+      BooleanConstant bc = (BooleanConstant) obj;
+      return bc != null && val.equals(bc.val);
+   }
+   
+   public int compareTo(Constant c) {
+      BooleanConstant bc = (BooleanConstant) c;
+      return val.compareTo(bc.val);
+   }
+   
+   public int hashCode() {
+      return val.hashCode();
+   }
+   
+   public String toString() {
+      return val.toString();
+   }
+}
@@ -0,0 +1,71 @@
+package simpledb.query;
+
+import java.util.Date;
+import java.util.Calendar;
+import java.text.SimpleDateFormat;
+
+/**
+ * The class that wraps Java dates as database constants.
+ * The same class holds the values of DATE and TIMESTAMP fields;
+ * a DATE value is a timestamp at midnight.
+ */
+public class DateConstant implements Constant {
+   private Date val;
+   
+   /**
+    * Create a constant having the time of the specified date.
+    * The constant holds a plain Date, so that a
+    * subclass such as java.sql.Timestamp does not
+    * affect how it compares; time below a millisecond is dropped.
+    * @param d the date value
+    */
+   public DateConstant(Date d) {
+      this(d.getTime());
+   }
+   
+   /**
+    * Create a constant for the date having the
+    * specified number of milliseconds since the epoch.
+    * @param millis the time of the date
+    */
+   public DateConstant(long millis) {
+      val = new Date(millis);
+   }
+   
+   /**
+    * Unwraps the Date and returns it.
+    * @see simpledb.query.Constant#asJavaVal()
+    */
+   public Object asJavaVal() {
+      return val;
+   }
+   
+   public boolean equals(Object obj) {
+      DateConstant dc = (DateConstant) obj;
+      return dc != null && val.equals(dc.val);
+   }
+   
+   public int compareTo(Constant c) {
+      DateConstant dc = (DateConstant) c;
+      return val.compareTo(dc.val);
+   }
+   
+   public int hashCode() {
+      return val.hashCode();
+   }
+   
+   /**
+    * Formats the date as yyyy-mm-dd, followed
+    * by the time of day unless it is midnight.
+    */
+   public String toString() {
+      Calendar cal = Calendar.getInstance();
+      cal.setTime(val);
+      boolean midnight = cal.get(Calendar.HOUR_OF_DAY) == 0
+            && cal.get(Calendar.MINUTE) == 0
+            && cal.get(Calendar.SECOND) == 0
+            && cal.get(Calendar.MILLISECOND) == 0;
+      String pattern = midnight ? "yyyy-MM-dd" : "yyyy-MM-dd HH:mm:ss";
+      return new SimpleDateFormat(pattern).format(val);
+   }
+}
@@ -24,13 +24,17 @@ public class IntConstant implements Constant {
    }
    
    public boolean equals(Object obj) {
-      IntConstant ic = (IntConstant) obj;
-      return ic != null && val.equals(ic.val);
+      Constant c = (Constant) obj;
+      return c != null && compareTo(c) == 0;
    }
    
+   /**
+    * Compares this constant with another numeric constant,
+    * which need not be an IntConstant, by value.
+    * @see java.lang.Comparable#compareTo(java.lang.Object)
+    */
    public int compareTo(Constant c) {
-      IntConstant ic = (IntConstant) c;
-      return val.compareTo(ic.val);
+      return Long.compare(val, ((Number) c.asJavaVal()).longValue());
    }
    
    public int hashCode() {
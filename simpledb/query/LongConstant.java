@@ -0,0 +1,47 @@
+package simpledb.query;
+
+/**
+ * The class that wraps Java longs as database constants.
+ * A long constant compares equal to any numeric
+ * constant having the same value.
+ * A value that fits in an int has the hash code of
+ * the equal {@link IntConstant}, so that equal keys
+ * of different types fall in the same hash bucket.
+ */
+public class LongConstant implements Constant {
+   private Long val;
+   
+   /**
+    * Create a constant by wrapping the specified long.
+    * @param n the long value
+    */
+   public LongConstant(long n) {
+      val = n;
+   }
+   
+   /**
+    * Unwraps the Long and returns it.
+    * @see simpledb.query.Constant#asJavaVal()
+    */
+   public Object asJavaVal() {
+      return val;
+   }
+   
+   public boolean equals(Object obj) {
+      Constant c = (Constant) obj;
+      return c != null && compareTo(c) == 0;
+   }
+   
+   public int compareTo(Constant c) {
+      return Long.compare(val, ((Number) c.asJavaVal()).longValue());
+   }
+   
+   public int hashCode() {
+      long n = val;
+      return (n == (int) n) ? (int) n : val.hashCode();
+   }
+   
+   public String toString() {
+      return val.toString();
+   }
+}
@@ -97,6 +97,19 @@ public class ProductScan implements Scan {
          return s2.getString(fldname);
    }
    
+   /** 
+    * Compares the value of the specified field with the constant.
+    * The comparison is made by whichever scan
+    * contains the field.
+    * @see simpledb.query.Scan#compareVal(java.lang.String, simpledb.query.Constant)
+    */
+   public int compareVal(String fldname, Constant val) {
+      if (s1.hasField(fldname))
+         return s1.compareVal(fldname, val);
+      else
+         return s2.compareVal(fldname, val);
+   }
+   
    /**
     * Returns true if the specified field is in
     * either of the underlying scans.
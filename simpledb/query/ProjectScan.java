@@ -57,6 +57,13 @@ public class ProjectScan implements Scan {
          throw new RuntimeException("field " + fldname + " not found.");
    }
    
+   public int compareVal(String fldname, Constant val) {
+      if (hasField(fldname))
+         return s.compareVal(fldname, val);
+      else
+         throw new RuntimeException("field " + fldname + " not found.");
+   }
+   
    /**
     * Returns true if the specified field
     * is in the projection list.
@@ -48,6 +48,19 @@ public interface Scan {
     */
    public String   getString(String fldname);
    
+   /**
+    * Compares the value of the specified field
+    * in the current record with the specified constant,
+    * as {@link Constant#compareTo} would.
+    * Scans that read records from pages compare
+    * string values in place, without creating a constant.
+    * @param fldname the name of the field
+    * @param val the constant to compare with
+    * @return a negative integer, zero, or a positive integer as the
+    * field's value is less than, equal to, or greater than the constant
+    */
+   public int      compareVal(String fldname, Constant val);
+   
    /**
     * Returns true if the scan has the specified field.
     * @param fldname the name of the field
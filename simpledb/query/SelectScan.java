@@ -60,6 +60,10 @@ public class SelectScan implements UpdateScan {
       return s.getString(fldname);
    }
    
+   public int compareVal(String fldname, Constant val) {
+      return s.compareVal(fldname, val);
+   }
+   
    public boolean hasField(String fldname) {
       return s.hasField(fldname);
    }
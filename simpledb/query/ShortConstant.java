@@ -0,0 +1,43 @@
+package simpledb.query;
+
+/**
+ * The class that wraps Java shorts as database constants.
+ * A short constant compares equal to any numeric
+ * constant having the same value, and has the same hash code.
+ */
+public class ShortConstant implements Constant {
+   private Short val;
+   
+   /**
+    * Create a constant by wrapping the specified short.
+    * @param n the short value
+    */
+   public ShortConstant(short n) {
+      val = n;
+   }
+   
+   /**
+    * Unwraps the Short and returns it.
+    * @see simpledb.query.Constant#asJavaVal()
+    */
+   public Object asJavaVal() {
+      return val;
+   }
+   
+   public boolean equals(Object obj) {
+      Constant c = (Constant) obj;
+      return c != null && compareTo(c) == 0;
+   }
+   
+   public int compareTo(Constant c) {
+      return Long.compare(val, ((Number) c.asJavaVal()).longValue());
+   }
+   
+   public int hashCode() {
+      return val.intValue();
+   }
+   
+   public String toString() {
+      return val.toString();
+   }
+}
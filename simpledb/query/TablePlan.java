@@ -2,6 +2,7 @@ package simpledb.query;
 
 import simpledb.server.SimpleDB;
 import simpledb.tx.Transaction;
+import simpledb.buffer.AccessStrategy;
 import simpledb.metadata.*;
 import simpledb.record.*;
 
@@ -27,10 +28,16 @@ public class TablePlan implements Plan {
    
    /**
     * Creates a table scan for this query.
+    * A table larger than a quarter of the buffer pool
+    * is scanned through a bulk-read access strategy,
+    * so that the scan does not push other pages out of the pool.
     * @see simpledb.query.Plan#open()
     */
    public Scan open() {
-      return new TableScan(ti, tx);
+      AccessStrategy strategy = null;
+      if (si.blocksAccessed() > SimpleDB.bufferMgr().size() / 4)
+         strategy = AccessStrategy.bulkRead();
+      return new TableScan(ti, tx, strategy);
    }
    
    /**
@@ -1,8 +1,10 @@
 package simpledb.query;
 
-import static java.sql.Types.INTEGER;
+import static java.sql.Types.*;
 import simpledb.tx.Transaction;
+import simpledb.buffer.AccessStrategy;
 import simpledb.record.*;
+import java.util.Date;
 
 /**
  * The Scan class corresponding to a table.
@@ -23,7 +25,19 @@ public class TableScan implements UpdateScan {
     * @param tx the calling transaction
     */
    public TableScan(TableInfo ti, Transaction tx) {
-      rf  = new RecordFile(ti, tx);
+      this(ti, tx, null);
+   }
+   
+   /**
+    * Creates a new table scan whose blocks are pinned
+    * through the specified access strategy,
+    * and opens its corresponding record file. 
+    * @param ti the table's metadata
+    * @param tx the calling transaction
+    * @param strategy the access strategy, or null for the default
+    */
+   public TableScan(TableInfo ti, Transaction tx, AccessStrategy strategy) {
+      rf  = new RecordFile(ti, tx, strategy);
       sch = ti.schema();
    }
    
@@ -43,14 +57,23 @@ public class TableScan implements UpdateScan {
    
    /**
     * Returns the value of the specified field, as a Constant.
-    * The schema is examined to determine the field's type.
-    * If INTEGER, then the record file's getInt method is called;
-    * otherwise, the getString method is called.
+    * The schema is examined to determine the field's type,
+    * and the record file's corresponding get method is called.
+    * Dates and timestamps are stored as long integers.
     * @see simpledb.query.Scan#getVal(java.lang.String)
     */
    public Constant getVal(String fldname) {
-      if (sch.type(fldname) == INTEGER)
+      int fldtype = sch.type(fldname);
+      if (fldtype == INTEGER)
          return new IntConstant(rf.getInt(fldname));
+      else if (fldtype == SMALLINT)
+         return new ShortConstant(rf.getShort(fldname));
+      else if (fldtype == BIGINT)
+         return new LongConstant(rf.getLong(fldname));
+      else if (fldtype == DATE || fldtype == TIMESTAMP)
+         return new DateConstant(rf.getLong(fldname));
+      else if (fldtype == BOOLEAN)
+         return new BooleanConstant(rf.getBoolean(fldname));
       else
          return new StringConstant(rf.getString(fldname));
    }
@@ -63,6 +86,29 @@ public class TableScan implements UpdateScan {
       return rf.getString(fldname);
    }
    
+   /**
+    * Compares the value of the specified field with the constant.
+    * A string field is compared in place in the record file's page,
+    * and a numeric constant is compared by value with
+    * a numeric field of any type, so no constant is created.
+    * @see simpledb.query.Scan#compareVal(java.lang.String, simpledb.query.Constant)
+    */
+   public int compareVal(String fldname, Constant val) {
+      int fldtype = sch.type(fldname);
+      if (fldtype == INTEGER)
+         return Long.compare(rf.getInt(fldname), ((Number) val.asJavaVal()).longValue());
+      else if (fldtype == SMALLINT)
+         return Long.compare(rf.getShort(fldname), ((Number) val.asJavaVal()).longValue());
+      else if (fldtype == BIGINT)
+         return Long.compare(rf.getLong(fldname), ((Number) val.asJavaVal()).longValue());
+      else if (fldtype == DATE || fldtype == TIMESTAMP)
+         return Long.compare(rf.getLong(fldname), ((Date) val.asJavaVal()).getTime());
+      else if (fldtype == BOOLEAN)
+         return Boolean.compare(rf.getBoolean(fldname), (Boolean) val.asJavaVal());
+      else
+         return rf.compareString(fldname, (String) val.asJavaVal());
+   }
+   
    public boolean hasField(String fldname) {
       return sch.hasField(fldname);
    }
@@ -71,14 +117,23 @@ public class TableScan implements UpdateScan {
    
    /**
     * Sets the value of the specified field, as a Constant.
-    * The schema is examined to determine the field's type.
-    * If INTEGER, then the record file's setInt method is called;
-    * otherwise, the setString method is called.
+    * The schema is examined to determine the field's type,
+    * and the record file's corresponding set method is called.
+    * A numeric constant of any type may be stored in a numeric field.
     * @see simpledb.query.UpdateScan#setVal(java.lang.String, simpledb.query.Constant)
     */ 
    public void setVal(String fldname, Constant val) {
-      if (sch.type(fldname) == INTEGER)
-         rf.setInt(fldname, (Integer)val.asJavaVal());
+      int fldtype = sch.type(fldname);
+      if (fldtype == INTEGER)
+         rf.setInt(fldname, ((Number)val.asJavaVal()).intValue());
+      else if (fldtype == SMALLINT)
+         rf.setShort(fldname, ((Number)val.asJavaVal()).shortValue());
+      else if (fldtype == BIGINT)
+         rf.setLong(fldname, ((Number)val.asJavaVal()).longValue());
+      else if (fldtype == DATE || fldtype == TIMESTAMP)
+         rf.setLong(fldname, ((Date)val.asJavaVal()).getTime());
+      else if (fldtype == BOOLEAN)
+         rf.setBoolean(fldname, (Boolean)val.asJavaVal());
       else
          rf.setString(fldname, (String)val.asJavaVal());
    }
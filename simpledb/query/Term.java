@@ -108,10 +108,17 @@ public class Term {
     * Returns true if both of the term's expressions
     * evaluate to the same constant,
     * with respect to the specified scan.
+    * A field is compared in the scan with the value of
+    * the other expression, so that its own value
+    * need not be extracted.
     * @param s the scan
     * @return true if both expressions have the same value in the scan
     */
    public boolean isSatisfied(Scan s) {
+      if (lhs.isFieldName())
+         return s.compareVal(lhs.asFieldName(), rhs.evaluate(s)) == 0;
+      if (rhs.isFieldName())
+         return s.compareVal(rhs.asFieldName(), lhs.evaluate(s)) == 0;
       Constant lhsval = lhs.evaluate(s);
       Constant rhsval = rhs.evaluate(s);
       return rhsval.equals(lhsval);
@@ -1,6 +1,7 @@
 package simpledb.record;
 
 import simpledb.file.Block;
+import simpledb.buffer.AccessStrategy;
 import simpledb.tx.Transaction;
 
 /**
@@ -15,6 +16,7 @@ public class RecordFile {
    private String filename;
    private RecordPage rp;
    private int currentblknum;
+   private AccessStrategy strategy;
    
    /**
     * Constructs an object to manage a file of records.
@@ -23,8 +25,22 @@ public class RecordFile {
     * @param tx the transaction
     */
    public RecordFile(TableInfo ti, Transaction tx) {
+      this(ti, tx, null);
+   }
+   
+   /**
+    * Constructs an object to manage a file of records,
+    * whose blocks are pinned and appended through the
+    * specified access strategy.
+    * The strategy is released when the file is closed.
+    * @param ti the table metadata
+    * @param tx the transaction
+    * @param strategy the access strategy, or null for the default
+    */
+   public RecordFile(TableInfo ti, Transaction tx, AccessStrategy strategy) {
       this.ti = ti;
       this.tx = tx;
+      this.strategy = strategy;
       filename = ti.fileName();
       if (tx.size(filename) == 0)
          appendBlock();
@@ -36,6 +52,8 @@ public class RecordFile {
     */
    public void close() {
       rp.close();
+      if (strategy != null)
+         tx.release(strategy);
    }
    
    /**
@@ -81,6 +99,48 @@ public class RecordFile {
       return rp.getString(fldname);
    }
    
+   /**
+    * Compares the value of the specified string field
+    * in the current record with the specified string.
+    * @param fldname the name of the field
+    * @param key the string to compare with
+    * @return a negative integer, zero, or a positive integer as the
+    * stored string is less than, equal to, or greater than the key
+    */
+   public int compareString(String fldname, String key) {
+      return rp.compareString(fldname, key);
+   }
+   
+   /**
+    * Returns the value of the specified field
+    * in the current record.
+    * @param fldname the name of the field
+    * @return the short integer value at that field
+    */
+   public short getShort(String fldname) {
+      return rp.getShort(fldname);
+   }
+   
+   /**
+    * Returns the value of the specified field
+    * in the current record.
+    * @param fldname the name of the field
+    * @return the long integer value at that field
+    */
+   public long getLong(String fldname) {
+      return rp.getLong(fldname);
+   }
+   
+   /**
+    * Returns the value of the specified field
+    * in the current record.
+    * @param fldname the name of the field
+    * @return the boolean value at that field
+    */
+   public boolean getBoolean(String fldname) {
+      return rp.getBoolean(fldname);
+   }
+   
    /**
     * Sets the value of the specified field 
     * in the current record.
@@ -101,6 +161,36 @@ public class RecordFile {
       rp.setString(fldname, val);
    }
    
+   /**
+    * Sets the value of the specified field 
+    * in the current record.
+    * @param fldname the name of the field
+    * @param val the new value for the field
+    */
+   public void setShort(String fldname, short val) {
+      rp.setShort(fldname, val);
+   }
+   
+   /**
+    * Sets the value of the specified field 
+    * in the current record.
+    * @param fldname the name of the field
+    * @param val the new value for the field
+    */
+   public void setLong(String fldname, long val) {
+      rp.setLong(fldname, val);
+   }
+   
+   /**
+    * Sets the value of the specified field 
+    * in the current record.
+    * @param fldname the name of the field
+    * @param val the new value for the field
+    */
+   public void setBoolean(String fldname, boolean val) {
+      rp.setBoolean(fldname, val);
+   }
+   
    /**
     * Deletes the current record.
     * The client must call next() to move to
@@ -150,7 +240,7 @@ public class RecordFile {
          rp.close();
       currentblknum = b;
       Block blk = new Block(filename, currentblknum);
-      rp = new RecordPage(blk, ti, tx);
+      rp = new RecordPage(blk, ti, tx, strategy);
    }
    
    private boolean atLastBlock() {
@@ -159,6 +249,6 @@ public class RecordFile {
    
    private void appendBlock() {
       RecordFormatter fmtr = new RecordFormatter(ti);
-      tx.append(filename, fmtr);
+      tx.append(filename, fmtr, strategy);
    }
 }
\ No newline at end of file
@@ -1,6 +1,6 @@
 package simpledb.record;
 
-import static java.sql.Types.INTEGER;
+import static java.sql.Types.*;
 import static simpledb.file.Page.*;
 import static simpledb.record.RecordPage.EMPTY;
 import simpledb.file.Page;
@@ -41,8 +41,15 @@ class RecordFormatter implements PageFormatter {
    private void makeDefaultRecord(Page page, int pos) {
       for (String fldname : ti.schema().fields()) {
          int offset = ti.offset(fldname);
-         if (ti.schema().type(fldname) == INTEGER)
+         int fldtype = ti.schema().type(fldname);
+         if (fldtype == INTEGER)
             page.setInt(pos + INT_SIZE + offset, 0);
+         else if (fldtype == SMALLINT)
+            page.setShort(pos + INT_SIZE + offset, (short) 0);
+         else if (fldtype == BIGINT || fldtype == DATE || fldtype == TIMESTAMP)
+            page.setLong(pos + INT_SIZE + offset, 0);
+         else if (fldtype == BOOLEAN)
+            page.setBoolean(pos + INT_SIZE + offset, false);
          else
             page.setString(pos + INT_SIZE + offset, "");
       }
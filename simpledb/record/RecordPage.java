@@ -2,6 +2,7 @@ package simpledb.record;
 
 import static simpledb.file.Page.*;
 import simpledb.file.Block;
+import simpledb.buffer.AccessStrategy;
 import simpledb.tx.Transaction;
 
 /**
@@ -24,11 +25,22 @@ public class RecordPage {
      * @param tx the transaction performing the operations
      */
    public RecordPage(Block blk, TableInfo ti, Transaction tx) {
+      this(blk, ti, tx, null);
+   }
+   
+   /** Creates the record manager for the specified block,
+     * which is pinned through the specified access strategy.
+     * @param blk a reference to the disk block
+     * @param ti the table's metadata
+     * @param tx the transaction performing the operations
+     * @param strategy the access strategy, or null for the default
+     */
+   public RecordPage(Block blk, TableInfo ti, Transaction tx, AccessStrategy strategy) {
       this.blk = blk;
       this.ti = ti;
       this.tx = tx;
       slotsize = ti.recordLength() + INT_SIZE;
-      tx.pin(blk);
+      tx.pin(blk, strategy);
   }
    
    /**
@@ -71,6 +83,53 @@ public class RecordPage {
       return tx.getString(blk, position);
    }
    
+   /**
+    * Compares the string value stored for the
+    * specified field of the current record
+    * with the specified string.
+    * @param fldname the name of the field.
+    * @param key the string to compare with
+    * @return a negative integer, zero, or a positive integer as the
+    * stored string is less than, equal to, or greater than the key
+    */
+   public int compareString(String fldname, String key) {
+      int position = fieldpos(fldname);
+      return tx.compareString(blk, position, key);
+   }
+   
+   /**
+    * Returns the short integer value stored for the
+    * specified field of the current record.
+    * @param fldname the name of the field.
+    * @return the short integer stored in that field
+    */
+   public short getShort(String fldname) {
+      int position = fieldpos(fldname);
+      return tx.getShort(blk, position);
+   }
+   
+   /**
+    * Returns the long integer value stored for the
+    * specified field of the current record.
+    * @param fldname the name of the field.
+    * @return the long integer stored in that field
+    */
+   public long getLong(String fldname) {
+      int position = fieldpos(fldname);
+      return tx.getLong(blk, position);
+   }
+   
+   /**
+    * Returns the boolean value stored for the
+    * specified field of the current record.
+    * @param fldname the name of the field.
+    * @return the boolean stored in that field
+    */
+   public boolean getBoolean(String fldname) {
+      int position = fieldpos(fldname);
+      return tx.getBoolean(blk, position);
+   }
+   
    /**
     * Stores an integer at the specified field
     * of the current record.
@@ -93,6 +152,39 @@ public class RecordPage {
       tx.setString(blk, position, val);
    }
    
+   /**
+    * Stores a short integer at the specified field
+    * of the current record.
+    * @param fldname the name of the field
+    * @param val the short integer value stored in that field
+    */
+   public void setShort(String fldname, short val) {
+      int position = fieldpos(fldname);
+      tx.setShort(blk, position, val);
+   }
+   
+   /**
+    * Stores a long integer at the specified field
+    * of the current record.
+    * @param fldname the name of the field
+    * @param val the long integer value stored in that field
+    */
+   public void setLong(String fldname, long val) {
+      int position = fieldpos(fldname);
+      tx.setLong(blk, position, val);
+   }
+   
+   /**
+    * Stores a boolean at the specified field
+    * of the current record.
+    * @param fldname the name of the field
+    * @param val the boolean value stored in that field
+    */
+   public void setBoolean(String fldname, boolean val) {
+      int position = fieldpos(fldname);
+      tx.setBoolean(blk, position, val);
+   }
+   
    /**
     * Deletes the current record.
     * Deletion is performed by just marking the record
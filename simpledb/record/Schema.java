@@ -17,14 +17,14 @@ public class Schema {
    /**
     * Creates an empty schema.
     * Field information can be added to a schema
-    * via the five addXXX methods. 
+    * via the addXXX methods. 
     */
    public Schema() {}
    
    /**
     * Adds a field to the schema having a specified
     * name, type, and length.
-    * If the field type is "integer", then the length
+    * If the field type is not "varchar", then the length
     * value is irrelevant.
     * @param fldname the name of the field
     * @param type the type of the field, according to the constants in simpledb.sql.types
@@ -54,6 +54,47 @@ public class Schema {
       addField(fldname, VARCHAR, length);
    }
    
+   /**
+    * Adds a short integer field to the schema.
+    * @param fldname the name of the field
+    */
+   public void addShortField(String fldname) {
+      addField(fldname, SMALLINT, 0);
+   }
+   
+   /**
+    * Adds a long integer field to the schema.
+    * @param fldname the name of the field
+    */
+   public void addLongField(String fldname) {
+      addField(fldname, BIGINT, 0);
+   }
+   
+   /**
+    * Adds a boolean field to the schema.
+    * @param fldname the name of the field
+    */
+   public void addBooleanField(String fldname) {
+      addField(fldname, BOOLEAN, 0);
+   }
+   
+   /**
+    * Adds a date field to the schema.
+    * Its values are dates without a time of day.
+    * @param fldname the name of the field
+    */
+   public void addDateField(String fldname) {
+      addField(fldname, DATE, 0);
+   }
+   
+   /**
+    * Adds a timestamp field to the schema.
+    * @param fldname the name of the field
+    */
+   public void addTimestampField(String fldname) {
+      addField(fldname, TIMESTAMP, 0);
+   }
+   
    /**
     * Adds a field to the schema having the same
     * type and length as the corresponding field
@@ -1,7 +1,7 @@
 package simpledb.remote;
 
 import simpledb.record.Schema;
-import static java.sql.Types.INTEGER;
+import static java.sql.Types.*;
 import java.rmi.RemoteException;
 import java.rmi.server.UnicastRemoteObject;
 import java.util.*;
@@ -67,6 +67,8 @@ public class RemoteMetaDataImpl extends UnicastRemoteObject implements RemoteMet
     * Here, the method arbitrarily chooses 6 characters,
     * which means that integers over 999,999 will  
     * probably get displayed improperly.
+    * The other types have the widths of their
+    * largest values.
     * @see simpledb.remote.RemoteMetaData#getColumnDisplaySize(int)
     */
    public int getColumnDisplaySize(int column) throws RemoteException {
@@ -75,6 +77,16 @@ public class RemoteMetaDataImpl extends UnicastRemoteObject implements RemoteMet
       int fldlength = sch.length(fldname);
       if (fldtype == INTEGER)
          return 6;  // accommodate 6-digit integers
+      else if (fldtype == SMALLINT)
+         return 6;  // -32768
+      else if (fldtype == BIGINT)
+         return 20; // -9223372036854775808
+      else if (fldtype == BOOLEAN)
+         return 5;  // false
+      else if (fldtype == DATE)
+         return 10; // yyyy-mm-dd
+      else if (fldtype == TIMESTAMP)
+         return 19; // yyyy-mm-dd hh:mm:ss
       else
          return fldlength;
    }
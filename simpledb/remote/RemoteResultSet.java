@@ -12,6 +12,10 @@ public interface RemoteResultSet extends Remote {
    public boolean next()                   throws RemoteException;
    public int getInt(String fldname)       throws RemoteException;
    public String getString(String fldname) throws RemoteException;
+   public short getShort(String fldname)   throws RemoteException;
+   public long getLong(String fldname)     throws RemoteException;
+   public boolean getBoolean(String fldname) throws RemoteException;
+   public java.util.Date getDate(String fldname) throws RemoteException;
    public RemoteMetaData getMetaData()     throws RemoteException;
    public void close()                     throws RemoteException;
 }
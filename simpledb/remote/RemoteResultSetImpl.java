@@ -1,5 +1,6 @@
 package simpledb.remote;
 
+import static java.sql.Types.INTEGER;
 import simpledb.record.Schema;
 import simpledb.query.*;
 import java.rmi.RemoteException;
@@ -51,7 +52,10 @@ class RemoteResultSetImpl extends UnicastRemoteObject implements RemoteResultSet
    public int getInt(String fldname) throws RemoteException {
 		try {
 	      fldname = fldname.toLowerCase(); // to ensure case-insensitivity
-	      return s.getInt(fldname);
+	      if (sch.type(fldname) == INTEGER)
+	         return s.getInt(fldname);
+	      else
+	         return ((Number) s.getVal(fldname).asJavaVal()).intValue();
       }
       catch(RuntimeException e) {
          rconn.rollback();
@@ -60,9 +64,9 @@ class RemoteResultSetImpl extends UnicastRemoteObject implements RemoteResultSet
    }
 
    /**
-    * Returns the integer value of the specified field,
+    * Returns the string value of the specified field,
     * by returning the corresponding value on the saved scan.
-    * @see simpledb.remote.RemoteResultSet#getInt(java.lang.String)
+    * @see simpledb.remote.RemoteResultSet#getString(java.lang.String)
     */
    public String getString(String fldname) throws RemoteException {
 		try {
@@ -75,6 +79,55 @@ class RemoteResultSetImpl extends UnicastRemoteObject implements RemoteResultSet
       }
    }
 
+   /**
+    * Returns the value of the specified numeric field
+    * as a short integer.
+    * @see simpledb.remote.RemoteResultSet#getShort(java.lang.String)
+    */
+   public short getShort(String fldname) throws RemoteException {
+      return ((Number) getVal(fldname)).shortValue();
+   }
+
+   /**
+    * Returns the value of the specified numeric field
+    * as a long integer.
+    * @see simpledb.remote.RemoteResultSet#getLong(java.lang.String)
+    */
+   public long getLong(String fldname) throws RemoteException {
+      return ((Number) getVal(fldname)).longValue();
+   }
+
+   /**
+    * Returns the value of the specified boolean field.
+    * @see simpledb.remote.RemoteResultSet#getBoolean(java.lang.String)
+    */
+   public boolean getBoolean(String fldname) throws RemoteException {
+      return (Boolean) getVal(fldname);
+   }
+
+   /**
+    * Returns the value of the specified date or timestamp field.
+    * @see simpledb.remote.RemoteResultSet#getDate(java.lang.String)
+    */
+   public java.util.Date getDate(String fldname) throws RemoteException {
+      return (java.util.Date) getVal(fldname);
+   }
+
+   /**
+    * Returns the Java value of the specified field
+    * on the saved scan.
+    */
+   private Object getVal(String fldname) {
+		try {
+	      fldname = fldname.toLowerCase(); // to ensure case-insensitivity
+	      return s.getVal(fldname).asJavaVal();
+      }
+      catch(RuntimeException e) {
+         rconn.rollback();
+         throw e;
+      }
+   }
+
    /**
     * Returns the result set's metadata,
     * by passing its schema into the RemoteMetaData constructor.
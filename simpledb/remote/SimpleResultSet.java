@@ -42,6 +42,51 @@ public class SimpleResultSet extends ResultSetAdapter {
       }
    }
    
+   public short getShort(String fldname) throws SQLException {
+      try {
+         return rrs.getShort(fldname);
+      }
+      catch (Exception e) {
+         throw new SQLException(e);
+      }
+   }
+   
+   public long getLong(String fldname) throws SQLException {
+      try {
+         return rrs.getLong(fldname);
+      }
+      catch (Exception e) {
+         throw new SQLException(e);
+      }
+   }
+   
+   public boolean getBoolean(String fldname) throws SQLException {
+      try {
+         return rrs.getBoolean(fldname);
+      }
+      catch (Exception e) {
+         throw new SQLException(e);
+      }
+   }
+   
+   public Date getDate(String fldname) throws SQLException {
+      try {
+         return new Date(rrs.getDate(fldname).getTime());
+      }
+      catch (Exception e) {
+         throw new SQLException(e);
+      }
+   }
+   
+   public Timestamp getTimestamp(String fldname) throws SQLException {
+      try {
+         return new Timestamp(rrs.getDate(fldname).getTime());
+      }
+      catch (Exception e) {
+         throw new SQLException(e);
+      }
+   }
+   
    public ResultSetMetaData getMetaData() throws SQLException {
       try {
          RemoteMetaData rmd = rrs.getMetaData();
@@ -1,6 +1,8 @@
 package simpledb.server;
 
 import simpledb.file.FileMgr;
+import simpledb.file.Page;
+import simpledb.file.PageArena;
 import simpledb.buffer.*;
 import simpledb.tx.Transaction;
 import simpledb.log.LogMgr;
@@ -24,8 +26,25 @@ import simpledb.index.planner.IndexUpdatePlanner;
  */
 public class SimpleDB {
    public static int BUFFER_SIZE = 2;
+   public static String replacement_policy = "lru-k";
    public static int lru_k_param = 5;
+   public static long correlated_ref_period = 10; // references
+   public static long retained_info_period = 200000; // references
+   public static String buffer_clock = "counter"; // or "nanotime" (periods in milliseconds)
+   public static int buffer_partitions = Runtime.getRuntime().availableProcessors();
+   public static String buffer_trace_file = null; // no trace
+   public static double cleaner_low_water = 0.1; // fraction of each partition; 0 disables the cleaner
+   public static double cleaner_high_water = 0.25;
+   public static long cleaner_interval = 100; // milliseconds
+   public static int read_ahead = 8; // blocks; 0 disables read-ahead
+   public static boolean buffer_mapped = false; // map the pool's memory from a temporary file
+   public static String buffer_mbean = "simpledb:type=BufferPool"; // null: not registered
    public static String LOG_FILE = "simpledb.log";
+   public static int group_commit_window = 0; // microseconds a commit waits for others to share its log force
+   public static int group_commit_size = 8; // waiting commits that end the window early
+   public static int block_size = Page.DEFAULT_BLOCK_SIZE; // bytes, for new databases only
+   public static String mapped_files = null; // comma-separated file names, "name*" for a prefix; null: none
+   public static int extent_size = FileMgr.DEFAULT_EXTENT_SIZE; // blocks by which files grow
    
    private static FileMgr     fm;
    private static BufferMgr   bm;
@@ -60,7 +79,11 @@ public class SimpleDB {
     * @param dirname the name of the database directory
     */
    public static void initFileMgr(String dirname) {
-      fm = new FileMgr(dirname);
+      fm = new FileMgr(dirname, block_size);
+      fm.setExtentSize(extent_size);
+      if (mapped_files != null)
+         for (String name : mapped_files.split(","))
+            fm.setMapped(name.trim(), true);
    }
    
    /**
@@ -70,6 +93,7 @@ public class SimpleDB {
    public static void initFileAndLogMgr(String dirname) {
       initFileMgr(dirname);
       logm = new LogMgr(LOG_FILE);
+      logm.setGroupCommit(group_commit_window, group_commit_size);
    }
    
    /**
@@ -78,7 +102,17 @@ public class SimpleDB {
     */
    public static void initFileLogAndBufferMgr(String dirname) {
       initFileAndLogMgr(dirname);
-      bm = new BufferMgr(BUFFER_SIZE,lru_k_param);
+      bm = new BufferMgr(BUFFER_SIZE,replacement_policy,lru_k_param,correlated_ref_period,
+                         retained_info_period,buffer_partitions,BufferMgr.newClock(buffer_clock),
+                         new PageArena(BUFFER_SIZE, buffer_mapped));
+      if (buffer_trace_file != null)
+         bm.startTrace(buffer_trace_file);
+      if (cleaner_low_water > 0)
+         bm.startCleaner(cleaner_low_water, cleaner_high_water, cleaner_interval);
+      if (read_ahead > 0)
+         bm.startReadAhead(read_ahead);
+      if (buffer_mbean != null)
+         bm.registerMBean(buffer_mbean);
    }
    
    /**
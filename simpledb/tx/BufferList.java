@@ -12,6 +12,7 @@ import java.util.*;
 class BufferList {
    private Map<Block,Buffer> buffers = new HashMap<Block,Buffer>();
    private List<Block> pins = new ArrayList<Block>();
+   private Set<AccessStrategy> strategies = new HashSet<AccessStrategy>();
    private BufferMgr bufferMgr = SimpleDB.bufferMgr();
    
    /**
@@ -30,25 +31,50 @@ class BufferList {
     * @param blk a reference to the disk block
     */
    void pin(Block blk) {
-      Buffer buff = bufferMgr.pin(blk);
+      pin(blk, null);
+   }
+
+   /**
+    * Pins the block through the specified access strategy,
+    * and keeps track of the buffer internally.
+    * @param blk a reference to the disk block
+    * @param strategy the access strategy, or null
+    */
+   void pin(Block blk, AccessStrategy strategy) {
+      Buffer buff = bufferMgr.pin(blk, strategy);
       buffers.put(blk, buff);
       pins.add(blk);
+      if (strategy != null)
+         strategies.add(strategy);
    }
    
    /**
     * Appends a new block to the specified file
-    * and pins it.
+    * and pins it, through the specified access strategy.
     * @param filename the name of the file
     * @param fmtr the formatter used to initialize the new page
+    * @param strategy the access strategy, or null
     * @return a reference to the newly-created block
     */
-   Block pinNew(String filename, PageFormatter fmtr) {
-      Buffer buff = bufferMgr.pinNew(filename, fmtr);
+   Block pinNew(String filename, PageFormatter fmtr, AccessStrategy strategy) {
+      Buffer buff = bufferMgr.pinNew(filename, fmtr, strategy);
       Block blk = buff.block();
       buffers.put(blk, buff);
       pins.add(blk);
+      if (strategy != null)
+         strategies.add(strategy);
       return blk;
    }
+
+   /**
+    * Returns the frames of the specified strategy's ring
+    * to the buffer pool.
+    * @param strategy the access strategy
+    */
+   void release(AccessStrategy strategy) {
+      bufferMgr.release(strategy);
+      strategies.remove(strategy);
+   }
    
    /**
     * Unpins the specified block.
@@ -63,7 +89,8 @@ class BufferList {
    }
    
    /**
-    * Unpins any buffers still pinned by this transaction.
+    * Unpins any buffers still pinned by this transaction,
+    * and releases the rings of the strategies it used.
     */
    void unpinAll() {
       for (Block blk : pins) {
@@ -72,5 +99,8 @@ class BufferList {
       }
       buffers.clear();
       pins.clear();
+      for (AccessStrategy strategy : strategies)
+         bufferMgr.release(strategy);
+      strategies.clear();
    }
 }
\ No newline at end of file
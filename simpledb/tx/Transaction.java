@@ -86,6 +86,27 @@ public class Transaction {
    public void pin(Block blk) {
       myBuffers.pin(blk);
    }
+
+   /**
+    * Pins the specified block through the specified
+    * access strategy.
+    * The strategy's ring is released when the transaction
+    * commits or rolls back, if not before.
+    * @param blk a reference to the disk block
+    * @param strategy the access strategy, or null for the default
+    */
+   public void pin(Block blk, AccessStrategy strategy) {
+      myBuffers.pin(blk, strategy);
+   }
+
+   /**
+    * Returns the frames of the specified strategy's ring
+    * to the buffer pool.
+    * @param strategy the access strategy
+    */
+   public void release(AccessStrategy strategy) {
+      myBuffers.release(strategy);
+   }
    
    /**
     * Unpins the specified block.
@@ -127,6 +148,69 @@ public class Transaction {
       return buff.getString(offset);
    }
    
+   /**
+    * Compares the string value stored at the
+    * specified offset of the specified block
+    * with the specified string.
+    * The method first obtains an SLock on the block,
+    * then it calls the buffer to compare the value in place.
+    * @param blk a reference to a disk block
+    * @param offset the byte offset within the block
+    * @param key the string to compare with
+    * @return a negative integer, zero, or a positive integer as the
+    * stored string is less than, equal to, or greater than the key
+    */
+   public int compareString(Block blk, int offset, String key) {
+      concurMgr.sLock(blk);
+      Buffer buff = myBuffers.getBuffer(blk);
+      return buff.compareString(offset, key);
+   }
+   
+   /**
+    * Returns the short integer value stored at the
+    * specified offset of the specified block.
+    * The method first obtains an SLock on the block,
+    * then it calls the buffer to retrieve the value.
+    * @param blk a reference to a disk block
+    * @param offset the byte offset within the block
+    * @return the short integer stored at that offset
+    */
+   public short getShort(Block blk, int offset) {
+      concurMgr.sLock(blk);
+      Buffer buff = myBuffers.getBuffer(blk);
+      return buff.getShort(offset);
+   }
+   
+   /**
+    * Returns the long integer value stored at the
+    * specified offset of the specified block.
+    * The method first obtains an SLock on the block,
+    * then it calls the buffer to retrieve the value.
+    * @param blk a reference to a disk block
+    * @param offset the byte offset within the block
+    * @return the long integer stored at that offset
+    */
+   public long getLong(Block blk, int offset) {
+      concurMgr.sLock(blk);
+      Buffer buff = myBuffers.getBuffer(blk);
+      return buff.getLong(offset);
+   }
+   
+   /**
+    * Returns the boolean value stored at the
+    * specified offset of the specified block.
+    * The method first obtains an SLock on the block,
+    * then it calls the buffer to retrieve the value.
+    * @param blk a reference to a disk block
+    * @param offset the byte offset within the block
+    * @return the boolean stored at that offset
+    */
+   public boolean getBoolean(Block blk, int offset) {
+      concurMgr.sLock(blk);
+      Buffer buff = myBuffers.getBuffer(blk);
+      return buff.getBoolean(offset);
+   }
+   
    /**
     * Stores an integer at the specified offset 
     * of the specified block.
@@ -143,7 +227,7 @@ public class Transaction {
    public void setInt(Block blk, int offset, int val) {
       concurMgr.xLock(blk);
       Buffer buff = myBuffers.getBuffer(blk);
-      int lsn = recoveryMgr.setInt(buff, offset, val);
+      long lsn = recoveryMgr.setInt(buff, offset, val);
       buff.setInt(offset, val, txnum, lsn);
    }
    
@@ -163,10 +247,64 @@ public class Transaction {
    public void setString(Block blk, int offset, String val) {
       concurMgr.xLock(blk);
       Buffer buff = myBuffers.getBuffer(blk);
-      int lsn = recoveryMgr.setString(buff, offset, val);
+      long lsn = recoveryMgr.setString(buff, offset, val);
       buff.setString(offset, val, txnum, lsn);
    }
    
+   /**
+    * Stores a short integer at the specified offset 
+    * of the specified block.
+    * The method first obtains an XLock on the block,
+    * logs the current value at that offset,
+    * and then calls the buffer to store the value,
+    * as in {@link #setInt(Block, int, int)}.
+    * @param blk a reference to the disk block
+    * @param offset a byte offset within that block
+    * @param val the value to be stored
+    */
+   public void setShort(Block blk, int offset, short val) {
+      concurMgr.xLock(blk);
+      Buffer buff = myBuffers.getBuffer(blk);
+      long lsn = recoveryMgr.setShort(buff, offset, val);
+      buff.setShort(offset, val, txnum, lsn);
+   }
+   
+   /**
+    * Stores a long integer at the specified offset 
+    * of the specified block.
+    * The method first obtains an XLock on the block,
+    * logs the current value at that offset,
+    * and then calls the buffer to store the value,
+    * as in {@link #setInt(Block, int, int)}.
+    * @param blk a reference to the disk block
+    * @param offset a byte offset within that block
+    * @param val the value to be stored
+    */
+   public void setLong(Block blk, int offset, long val) {
+      concurMgr.xLock(blk);
+      Buffer buff = myBuffers.getBuffer(blk);
+      long lsn = recoveryMgr.setLong(buff, offset, val);
+      buff.setLong(offset, val, txnum, lsn);
+   }
+   
+   /**
+    * Stores a boolean at the specified offset 
+    * of the specified block.
+    * The method first obtains an XLock on the block,
+    * logs the current value at that offset,
+    * and then calls the buffer to store the value,
+    * as in {@link #setInt(Block, int, int)}.
+    * @param blk a reference to the disk block
+    * @param offset a byte offset within that block
+    * @param val the value to be stored
+    */
+   public void setBoolean(Block blk, int offset, boolean val) {
+      concurMgr.xLock(blk);
+      Buffer buff = myBuffers.getBuffer(blk);
+      long lsn = recoveryMgr.setBoolean(buff, offset, val);
+      buff.setBoolean(offset, val, txnum, lsn);
+   }
+   
    /**
     * Returns the number of blocks in the specified file.
     * This method first obtains an SLock on the 
@@ -191,9 +329,22 @@ public class Transaction {
     * @return a reference to the newly-created disk block
     */
    public Block append(String filename, PageFormatter fmtr) {
+      return append(filename, fmtr, null);
+   }
+
+   /**
+    * Appends a new block to the end of the specified file,
+    * through the specified access strategy,
+    * and returns a reference to it.
+    * @param filename the name of the file
+    * @param fmtr the formatter used to initialize the new page
+    * @param strategy the access strategy, or null for the default
+    * @return a reference to the newly-created disk block
+    */
+   public Block append(String filename, PageFormatter fmtr, AccessStrategy strategy) {
       Block dummyblk = new Block(filename, END_OF_FILE);
       concurMgr.xLock(dummyblk);
-      Block blk = myBuffers.pinNew(filename, fmtr);
+      Block blk = myBuffers.pinNew(filename, fmtr, strategy);
       unpin(blk);
       return blk;
    }
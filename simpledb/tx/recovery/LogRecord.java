@@ -9,11 +9,12 @@ import simpledb.server.SimpleDB;
  */
 public interface LogRecord {
    /**
-    * The six different types of log record
+    * The nine different types of log record
     */
    static final int CHECKPOINT = 0, START = 1,
       COMMIT = 2, ROLLBACK  = 3,
-      SETINT = 4, SETSTRING = 5;
+      SETINT = 4, SETSTRING = 5,
+      SETSHORT = 6, SETLONG = 7, SETBOOLEAN = 8;
    
    static final LogMgr logMgr = SimpleDB.logMgr();
    
@@ -21,7 +22,7 @@ public interface LogRecord {
     * Writes the record to the log and returns its LSN.
     * @return the LSN of the record in the log
     */
-   int writeToLog();
+   long writeToLog();
    
    /**
     * Returns the log record's type. 
@@ -39,7 +40,7 @@ public interface LogRecord {
    /**
     * Undoes the operation encoded by this log record.
     * The only log record types for which this method
-    * does anything interesting are SETINT and SETSTRING.
+    * does anything interesting are the SETxxx records.
     * @param txnum the id of the transaction that is performing the undo.
     */
    void undo(int txnum);
@@ -45,6 +45,12 @@ class LogRecordIterator implements Iterator<LogRecord> {
             return new SetIntRecord(rec);
          case SETSTRING:
             return new SetStringRecord(rec);
+         case SETSHORT:
+            return new SetShortRecord(rec);
+         case SETLONG:
+            return new SetLongRecord(rec);
+         case SETBOOLEAN:
+            return new SetBooleanRecord(rec);
          default:
             return null;
       }
@@ -24,11 +24,15 @@ public class RecoveryMgr {
 
    /**
     * Writes a commit record to the log, and flushes it to disk.
+    * The transaction's modified pages are forced to disk first,
+    * since recovery does not redo committed transactions.
+    * The log force may be shared with other committing transactions.
     */
    public void commit() {
       SimpleDB.bufferMgr().flushAll(txnum);
-      int lsn = new CommitRecord(txnum).writeToLog();
-      SimpleDB.logMgr().flush(lsn);
+      SimpleDB.fileMgr().forceAll();
+      long lsn = new CommitRecord(txnum).writeToLog();
+      SimpleDB.logMgr().commit(lsn);
    }
 
    /**
@@ -37,8 +41,9 @@ public class RecoveryMgr {
    public void rollback() {
       doRollback();
       SimpleDB.bufferMgr().flushAll(txnum);
-      int lsn = new RollbackRecord(txnum).writeToLog();
-      SimpleDB.logMgr().flush(lsn);
+      SimpleDB.fileMgr().forceAll();
+      long lsn = new RollbackRecord(txnum).writeToLog();
+      SimpleDB.logMgr().commit(lsn);
    }
 
    /**
@@ -48,7 +53,8 @@ public class RecoveryMgr {
    public void recover() {
       doRecover();
       SimpleDB.bufferMgr().flushAll(txnum);
-      int lsn = new CheckpointRecord().writeToLog();
+      SimpleDB.fileMgr().forceAll();
+      long lsn = new CheckpointRecord().writeToLog();
       SimpleDB.logMgr().flush(lsn);
 
    }
@@ -61,7 +67,7 @@ public class RecoveryMgr {
     * @param offset the offset of the value in the page
     * @param newval the value to be written
     */
-   public int setInt(Buffer buff, int offset, int newval) {
+   public long setInt(Buffer buff, int offset, int newval) {
       int oldval = buff.getInt(offset);
       Block blk = buff.block();
       if (isTempBlock(blk))
@@ -78,7 +84,7 @@ public class RecoveryMgr {
     * @param offset the offset of the value in the page
     * @param newval the value to be written
     */
-   public int setString(Buffer buff, int offset, String newval) {
+   public long setString(Buffer buff, int offset, String newval) {
       String oldval = buff.getString(offset);
       Block blk = buff.block();
       if (isTempBlock(blk))
@@ -87,6 +93,57 @@ public class RecoveryMgr {
          return new SetStringRecord(txnum, blk, offset, oldval).writeToLog();
    }
 
+   /**
+    * Writes a setshort record to the log, and returns its lsn.
+    * Updates to temporary files are not logged; instead, a
+    * "dummy" negative lsn is returned.
+    * @param buff the buffer containing the page
+    * @param offset the offset of the value in the page
+    * @param newval the value to be written
+    */
+   public long setShort(Buffer buff, int offset, short newval) {
+      short oldval = buff.getShort(offset);
+      Block blk = buff.block();
+      if (isTempBlock(blk))
+         return -1;
+      else
+         return new SetShortRecord(txnum, blk, offset, oldval).writeToLog();
+   }
+
+   /**
+    * Writes a setlong record to the log, and returns its lsn.
+    * Updates to temporary files are not logged; instead, a
+    * "dummy" negative lsn is returned.
+    * @param buff the buffer containing the page
+    * @param offset the offset of the value in the page
+    * @param newval the value to be written
+    */
+   public long setLong(Buffer buff, int offset, long newval) {
+      long oldval = buff.getLong(offset);
+      Block blk = buff.block();
+      if (isTempBlock(blk))
+         return -1;
+      else
+         return new SetLongRecord(txnum, blk, offset, oldval).writeToLog();
+   }
+
+   /**
+    * Writes a setboolean record to the log, and returns its lsn.
+    * Updates to temporary files are not logged; instead, a
+    * "dummy" negative lsn is returned.
+    * @param buff the buffer containing the page
+    * @param offset the offset of the value in the page
+    * @param newval the value to be written
+    */
+   public long setBoolean(Buffer buff, int offset, boolean newval) {
+      boolean oldval = buff.getBoolean(offset);
+      Block blk = buff.block();
+      if (isTempBlock(blk))
+         return -1;
+      else
+         return new SetBooleanRecord(txnum, blk, offset, oldval).writeToLog();
+   }
+
    /**
     * Rolls back the transaction.
     * The method iterates through the log records,
@@ -0,0 +1,79 @@
+package simpledb.tx.recovery;
+
+import simpledb.server.SimpleDB;
+import simpledb.buffer.*;
+import simpledb.file.Block;
+import simpledb.log.BasicLogRecord;
+
+class SetBooleanRecord implements LogRecord {
+   private int txnum, offset;
+   private boolean val;
+   private Block blk;
+
+   /**
+    * Creates a new setboolean log record.
+    * @param txnum the ID of the specified transaction
+    * @param blk the block containing the value
+    * @param offset the offset of the value in the block
+    * @param val the new value
+    */
+   public SetBooleanRecord(int txnum, Block blk, int offset, boolean val) {
+      this.txnum = txnum;
+      this.blk = blk;
+      this.offset = offset;
+      this.val = val;
+   }
+
+   /**
+    * Creates a log record by reading five other values from the log.
+    * @param rec the basic log record
+    */
+   public SetBooleanRecord(BasicLogRecord rec) {
+      txnum = rec.nextInt();
+      String filename = rec.nextString();
+      int blknum = rec.nextInt();
+      blk = new Block(filename, blknum);
+      offset = rec.nextInt();
+      val = rec.nextInt() != 0;
+   }
+
+   /**
+    * Writes a setBoolean record to the log.
+    * This log record contains the SETBOOLEAN operator,
+    * followed by the transaction id, the filename, number,
+    * and offset of the modified block, and the previous
+    * boolean value at that offset, as an integer.
+    * @return the LSN of the record
+    */
+   public long writeToLog() {
+      Object[] rec = new Object[] {SETBOOLEAN, txnum, blk.fileName(),
+         blk.number(), offset, val ? 1 : 0};
+      return logMgr.append(rec);
+   }
+
+   public int op() {
+      return SETBOOLEAN;
+   }
+
+   public int txNumber() {
+      return txnum;
+   }
+
+   public String toString() {
+      return "<SETBOOLEAN " + txnum + " " + blk + " " + offset + " " + val + ">";
+   }
+
+   /**
+    * Replaces the specified data value with the value saved in the log record.
+    * The method pins a buffer to the specified block,
+    * calls setBoolean to restore the saved value
+    * (using a dummy LSN), and unpins the buffer.
+    * @see simpledb.tx.recovery.LogRecord#undo(int)
+    */
+   public void undo(int txnum) {
+      BufferMgr buffMgr = SimpleDB.bufferMgr();
+      Buffer buff = buffMgr.pin(blk);
+      buff.setBoolean(offset, val, txnum, -1);
+      buffMgr.unpin(buff);
+   }
+}
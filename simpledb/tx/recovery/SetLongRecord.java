@@ -0,0 +1,84 @@
+package simpledb.tx.recovery;
+
+import simpledb.server.SimpleDB;
+import simpledb.buffer.*;
+import simpledb.file.Block;
+import simpledb.log.BasicLogRecord;
+
+class SetLongRecord implements LogRecord {
+   private int txnum, offset;
+   private long val;
+   private Block blk;
+
+   /**
+    * Creates a new setlong log record.
+    * @param txnum the ID of the specified transaction
+    * @param blk the block containing the value
+    * @param offset the offset of the value in the block
+    * @param val the new value
+    */
+   public SetLongRecord(int txnum, Block blk, int offset, long val) {
+      this.txnum = txnum;
+      this.blk = blk;
+      this.offset = offset;
+      this.val = val;
+   }
+
+   /**
+    * Creates a log record by reading six other values from the log.
+    * @param rec the basic log record
+    */
+   public SetLongRecord(BasicLogRecord rec) {
+      txnum = rec.nextInt();
+      String filename = rec.nextString();
+      int blknum = rec.nextInt();
+      blk = new Block(filename, blknum);
+      offset = rec.nextInt();
+      int high = rec.nextInt();
+      int low = rec.nextInt();
+      val = ((long) high << 32) | (low & 0xFFFFFFFFL);
+   }
+
+   /**
+    * Writes a setLong record to the log.
+    * This log record contains the SETLONG operator,
+    * followed by the transaction id, the filename, number,
+    * and offset of the modified block, and the previous
+    * long integer value at that offset.
+    * The log holds only integers and strings,
+    * so the value is written as two integers,
+    * its high half first.
+    * @return the LSN of the record
+    */
+   public long writeToLog() {
+      Object[] rec = new Object[] {SETLONG, txnum, blk.fileName(),
+         blk.number(), offset, (int) (val >>> 32), (int) val};
+      return logMgr.append(rec);
+   }
+
+   public int op() {
+      return SETLONG;
+   }
+
+   public int txNumber() {
+      return txnum;
+   }
+
+   public String toString() {
+      return "<SETLONG " + txnum + " " + blk + " " + offset + " " + val + ">";
+   }
+
+   /**
+    * Replaces the specified data value with the value saved in the log record.
+    * The method pins a buffer to the specified block,
+    * calls setLong to restore the saved value
+    * (using a dummy LSN), and unpins the buffer.
+    * @see simpledb.tx.recovery.LogRecord#undo(int)
+    */
+   public void undo(int txnum) {
+      BufferMgr buffMgr = SimpleDB.bufferMgr();
+      Buffer buff = buffMgr.pin(blk);
+      buff.setLong(offset, val, txnum, -1);
+      buffMgr.unpin(buff);
+   }
+}
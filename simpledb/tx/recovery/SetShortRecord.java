@@ -0,0 +1,79 @@
+package simpledb.tx.recovery;
+
+import simpledb.server.SimpleDB;
+import simpledb.buffer.*;
+import simpledb.file.Block;
+import simpledb.log.BasicLogRecord;
+
+class SetShortRecord implements LogRecord {
+   private int txnum, offset;
+   private short val;
+   private Block blk;
+
+   /**
+    * Creates a new setshort log record.
+    * @param txnum the ID of the specified transaction
+    * @param blk the block containing the value
+    * @param offset the offset of the value in the block
+    * @param val the new value
+    */
+   public SetShortRecord(int txnum, Block blk, int offset, short val) {
+      this.txnum = txnum;
+      this.blk = blk;
+      this.offset = offset;
+      this.val = val;
+   }
+
+   /**
+    * Creates a log record by reading five other values from the log.
+    * @param rec the basic log record
+    */
+   public SetShortRecord(BasicLogRecord rec) {
+      txnum = rec.nextInt();
+      String filename = rec.nextString();
+      int blknum = rec.nextInt();
+      blk = new Block(filename, blknum);
+      offset = rec.nextInt();
+      val = (short) rec.nextInt();
+   }
+
+   /**
+    * Writes a setShort record to the log.
+    * This log record contains the SETSHORT operator,
+    * followed by the transaction id, the filename, number,
+    * and offset of the modified block, and the previous
+    * short integer value at that offset.
+    * @return the LSN of the record
+    */
+   public long writeToLog() {
+      Object[] rec = new Object[] {SETSHORT, txnum, blk.fileName(),
+         blk.number(), offset, (int) val};
+      return logMgr.append(rec);
+   }
+
+   public int op() {
+      return SETSHORT;
+   }
+
+   public int txNumber() {
+      return txnum;
+   }
+
+   public String toString() {
+      return "<SETSHORT " + txnum + " " + blk + " " + offset + " " + val + ">";
+   }
+
+   /**
+    * Replaces the specified data value with the value saved in the log record.
+    * The method pins a buffer to the specified block,
+    * calls setShort to restore the saved value
+    * (using a dummy LSN), and unpins the buffer.
+    * @see simpledb.tx.recovery.LogRecord#undo(int)
+    */
+   public void undo(int txnum) {
+      BufferMgr buffMgr = SimpleDB.bufferMgr();
+      Buffer buff = buffMgr.pin(blk);
+      buff.setShort(offset, val, txnum, -1);
+      buffMgr.unpin(buff);
+   }
+}